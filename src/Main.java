@@ -1,40 +1,145 @@
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 
+import java.util.concurrent.ForkJoinPool;
+
 import classes.ErrorLogger;
+import classes.ParallelParse;
+import classes.ParseListener;
+import classes.PipelinedScan;
+import classes.ProcedureCache;
+import classes.RecordingParseListener;
 import classes.Scan;
+import classes.TokenCursor;
+import classes.TokenSource;
+import objects.NameTable;
 import objects.SymbolTable;
+import objects.TokenBuffer;
 import classes.Parse;
 
 public class Main
 {
-
+	
 	public static void main(String[] args) throws Exception
 	{
 		List<String> PathList = new ArrayList<String>();
+		boolean isBuffered = false;
+		boolean isPipelined = false;
+		boolean isParallel = false;
+		boolean isTreePrinted = false;
+		boolean isParallelParse = false;
+		boolean isQuiet = false;
+		ProcedureCache theCache = null;
+		int theErrorLimit = ErrorLogger.DEFAULT_ERROR_LIMIT;
 		for(int i = 0; i < args.length; i++)
 		{
-			PathList.add(args[i]);
+			// Options start with '-'. Everything else is a source path.
+			if(args[i].equals("-buffered"))
+				isBuffered = true;
+			else if(args[i].equals("-pipelined"))
+				isPipelined = true;
+			else if(args[i].equals("-parallel"))
+				isParallel = true;
+			else if(args[i].equals("-tree"))
+				isTreePrinted = true;
+			else if(args[i].equals("-parallelparse"))
+				isParallelParse = true;
+			// -incremental lets a parallel parse reuse the procedure bodies of the file before, for versions of a program.
+			else if(args[i].equals("-incremental"))
+				theCache = new ProcedureCache();
+			// -quiet leaves out the constructs the parser recognizes, printing only errors and results.
+			else if(args[i].equals("-quiet"))
+				isQuiet = true;
+			// -maxerrors N stops parsing a file after N errors. Zero means no limit.
+			else if(args[i].equals("-maxerrors") && i + 1 < args.length)
+				theErrorLimit = Integer.parseInt(args[++i]);
+			else
+				PathList.add(args[i]);
 		}
 		
-
+		
 		for(String path : PathList)
 		{
+			// The constructs the parser recognizes are printed on a background thread, in order with errors and results.
+			RecordingParseListener theTrace = isQuiet ? null : new RecordingParseListener(System.out);
+			PrintStream theOutput = theTrace == null ? System.out : theTrace.getOutput();
+			
 			// Initialize Scan class.
 			ErrorLogger theLogger = new ErrorLogger();
-			SymbolTable theSymbolTable = new SymbolTable(theLogger);
-			Scan theScanner = new Scan(path);
-			Parse theParser = new Parse(theScanner, theLogger, theSymbolTable);
-
+			theLogger.setErrorLimit(theErrorLimit);
+			theLogger.setOutput(theOutput);
+			// Every file has its own identifier names, shared by its scanner and its symbol table.
+			NameTable theNames = new NameTable();
+			SymbolTable theSymbolTable = new SymbolTable(theLogger, theNames);
+			// A path of '-' streams the source from standard input.
+			Scan theScanner = path.equals("-") ? new Scan(System.in, theNames) : new Scan(path, theNames);
+			
+			Parse theParser = null;
+			ParallelParse theBodyParser = null;
+			PipelinedScan thePipeline = null;
+			boolean isParsed = false;
 			try
 			{
-				theParser.ParseTokens();
-				System.out.println();
+				// Buffered mode scans the whole file into a packed token buffer before parsing. A streamed source is
+				// read into memory first, and then has a line index like a mapped file.
+				// Pipelined mode scans on a second thread while the parser consumes tokens.
+				// Parallel mode scans chunks of the file on the common fork/join pool before parsing.
+				// Parallel parse mode parses the procedure bodies of the buffered tokens on the common fork/join pool.
+				TokenBuffer theBuffer = null;
+				if(isParallelParse || isBuffered)
+					theBuffer = isParallelParse && isParallel ? theScanner.ScanAllParallel() : theScanner.ScanAll();
+				else if(isParallel && !isPipelined)
+					theBuffer = theScanner.ScanAllParallel();
+				theLogger.setLineIndex(theScanner.GetLineIndex());
+				
+				TokenSource theTokens = theScanner;
+				if(isParallelParse)
+				{
+					theBodyParser = new ParallelParse(theBuffer, theLogger, theSymbolTable, ForkJoinPool.commonPool());
+					theBodyParser.setOutput(theOutput, theTrace != null);
+					theBodyParser.setCache(theCache);
+				}
+				else if(theBuffer != null)
+					theTokens = new TokenCursor(theBuffer);
+				else if(isPipelined)
+					theTokens = thePipeline = new PipelinedScan(theScanner);
+				
+				if(theBodyParser == null)
+				{
+					theParser = new Parse(theTokens, theLogger, theSymbolTable);
+					theParser.setOutput(theOutput);
+					theParser.setListener(theTrace == null ? ParseListener.NONE : theTrace);
+				}
+				
+				if(theBodyParser != null)
+					theParser = theBodyParser.ParseTokens();
+				else
+					theParser.ParseTokens();
+				isParsed = true;
 			} 
 			catch (Exception e)
 			{
 				// Error logger has printed log.
-				System.out.println("Failed to read file path.");
+				theOutput.println("Failed to read file path.");
+			}
+			finally
+			{
+				// A parse that stopped early leaves the scanner thread waiting on a full ring.
+				if(thePipeline != null)
+					thePipeline.Close();
+			}
+			
+			if(theTrace != null)
+				theTrace.Close();
+			
+			if(isParsed)
+			{
+				System.out.println();
+				
+				// Print the syntax tree built by the parser.
+				if(isTreePrinted)
+					theParser.getSyntaxTree().Print(System.out);
 			}
 		}
 	}
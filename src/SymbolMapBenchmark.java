@@ -0,0 +1,131 @@
+import java.util.HashMap;
+import java.util.Map;
+
+import objects.NameTable;
+import objects.Scope;
+import objects.ScopeMap;
+
+// Times inserting and looking up the scopes of a program with many symbols, keyed by dotted strings in a HashMap, as
+// the symbol table once kept them, and by scope and name ids in a ScopeMap, as it keeps them now. The arguments are
+// the number of procedures and the number of symbols in each, 1000 and 20 by default.
+public class SymbolMapBenchmark
+{
+	
+	public static void main(String[] args)
+	{
+		int theProcedureCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int theSymbolCount = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		
+		// Every key is 'program.procedureN.nameM'. The names are shared by all procedures, as locals tend to be.
+		NameTable theNameTable = new NameTable();
+		String[] theProcedures = new String[theProcedureCount];
+		int[] theProcedureIds = new int[theProcedureCount];
+		for(int i = 0; i < theProcedureCount; i++)
+		{
+			theProcedures[i] = "procedure" + i;
+			theProcedureIds[i] = theNameTable.Intern(theProcedures[i]);
+		}
+		String[] theNames = new String[theSymbolCount];
+		int[] theNameIds = new int[theSymbolCount];
+		for(int i = 0; i < theSymbolCount; i++)
+		{
+			theNames[i] = "name" + i;
+			theNameIds[i] = theNameTable.Intern(theNames[i]);
+		}
+		
+		// Warm both up before timing them.
+		for(int i = 0; i < 5; i++)
+		{
+			RunStrings(theProcedures, theNames);
+			RunIds(theProcedures, theProcedureIds, theNames, theNameIds);
+		}
+		
+		int theKeyCount = theProcedureCount * (theSymbolCount + 1);
+		System.out.println(theKeyCount + " keys, " + theProcedureCount + " procedures of " + theSymbolCount + " symbols.");
+		int theLookupCount = theProcedureCount * theSymbolCount;
+		Print("HashMap<String, Scope>", RunStrings(theProcedures, theNames), theKeyCount, theLookupCount);
+		Print("ScopeMap", RunIds(theProcedures, theProcedureIds, theNames, theNameIds), theKeyCount, theLookupCount);
+	}
+	
+	// Inserts then looks up every key as a dotted string. Returns the nanoseconds of each.
+	private static long[] RunStrings(String[] aProcedures, String[] aNames)
+	{
+		Map<String, Scope> theMap = new HashMap<String, Scope>();
+		Scope theProgram = new Scope(new Scope(), "program", 1);
+		
+		long theStart = System.nanoTime();
+		for(String theProcedure : aProcedures)
+		{
+			String theKey = "program." + theProcedure;
+			Scope theScope = new Scope(theProgram, theProcedure, 0);
+			theMap.put(theKey, theScope);
+			for(String theName : aNames)
+				theMap.put(theKey + "." + theName, new Scope(theScope, theName, 0));
+		}
+		long theInserted = System.nanoTime();
+		
+		int theFound = 0;
+		for(String theProcedure : aProcedures)
+		{
+			String theKey = "program." + theProcedure;
+			for(String theName : aNames)
+			{
+				if(theMap.get(theKey + "." + theName) != null)
+					theFound++;
+			}
+		}
+		long theLookedUp = System.nanoTime();
+		
+		Check(theFound, aProcedures.length * aNames.length);
+		return new long[] {theInserted - theStart, theLookedUp - theInserted};
+	}
+	
+	// Inserts then looks up every key by scope and name ids. Returns the nanoseconds of each.
+	private static long[] RunIds(String[] aProcedures, int[] aProcedureIds, String[] aNames, int[] aNameIds)
+	{
+		ScopeMap theMap = new ScopeMap();
+		Scope theProgram = new Scope(new Scope(), "program", 1);
+		int theScopeCount = 2;
+		
+		long theStart = System.nanoTime();
+		Scope[] theScopes = new Scope[aProcedures.length];
+		for(int i = 0; i < aProcedures.length; i++)
+		{
+			theScopes[i] = new Scope(theProgram, aProcedures[i], theScopeCount++);
+			theMap.Put(1, aProcedureIds[i], theScopes[i]);
+			for(int j = 0; j < aNames.length; j++)
+				theMap.Put(theScopes[i].getId(), aNameIds[j], new Scope(theScopes[i], aNames[j], theScopeCount++));
+		}
+		long theInserted = System.nanoTime();
+		
+		// The procedure's scope is looked up once, as entering it does, and each name in it.
+		int theFound = 0;
+		for(int i = 0; i < aProcedures.length; i++)
+		{
+			Scope theScope = theMap.Get(1, aProcedureIds[i]);
+			for(int j = 0; j < aNames.length; j++)
+			{
+				if(theMap.Get(theScope.getId(), aNameIds[j]) != null)
+					theFound++;
+			}
+		}
+		long theLookedUp = System.nanoTime();
+		
+		Check(theFound, aProcedures.length * aNames.length);
+		return new long[] {theInserted - theStart, theLookedUp - theInserted};
+	}
+	
+	// Prints the inserts and lookups per second.
+	private static void Print(String aName, long[] aTimes, int aInsertCount, int aLookupCount)
+	{
+		System.out.println(aName + ": " + (long) (aInsertCount / (aTimes[0] / 1e9)) + " inserts/s, "
+				+ (long) (aLookupCount / (aTimes[1] / 1e9)) + " lookups/s.");
+	}
+	
+	private static void Check(int aFound, int aExpected)
+	{
+		if(aFound != aExpected)
+			throw new IllegalStateException("Found " + aFound + " of " + aExpected + " keys.");
+	}
+
+}
@@ -0,0 +1,14 @@
+package classes;
+
+// Thrown by Parse when it reads on after the error logger has reached its error limit. Unwinds the parse at once, so a
+// source full of errors costs no more than its first errors.
+public class ErrorLimitException extends RuntimeException
+{
+	private static final long serialVersionUID = 1L;
+	
+	// Constructor.
+	public ErrorLimitException(int aErrorLimit)
+	{
+		super("Stopped after " + aErrorLimit + " errors.");
+	}
+}
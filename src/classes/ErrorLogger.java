@@ -1,40 +1,133 @@
 package classes;
 
 //import java.io.IOException;
+import java.io.PrintStream;
 
+import objects.LineIndex;
 import objects.Token;
 
 public class ErrorLogger
 {	
+	// Number of errors logged before parsing stops, unless set otherwise.
+	public static final int DEFAULT_ERROR_LIMIT = 100;
+	
+	// Private properties.
+	private LineIndex theLineIndex;
+	private PrintStream theOutput;
+	private int theErrorCount;
+	private int theErrorLimit;
+	
 	// Constructor.
 	public ErrorLogger()
 	{
+		theOutput = System.out;
+		theErrorCount = 0;
+		theErrorLimit = DEFAULT_ERROR_LIMIT;
+	}
+	
+	// Constructor for a logger printing to aOutput with the line index of aLogger. The index is built here, so loggers
+	// made this way can be used from other threads.
+	public ErrorLogger(ErrorLogger aLogger, PrintStream aOutput)
+	{
+		theLineIndex = aLogger.theLineIndex;
+		theOutput = aOutput;
+		theErrorCount = 0;
+		theErrorLimit = aLogger.theErrorLimit;
+		
+		if(theLineIndex != null)
+			theLineIndex.getLineCount();
+	}
+	
+	// Prints errors to aOutput instead of standard output.
+	public void setOutput(PrintStream aOutput)
+	{
+		theOutput = aOutput;
+	}
+	
+	// Lets errors report columns for tokens that carry a source span.
+	public void setLineIndex(LineIndex aLineIndex)
+	{
+		theLineIndex = aLineIndex;
+	}
+	
+	// Sets the number of errors after which no more are printed and parsing stops. Zero means no limit.
+	public void setErrorLimit(int aErrorLimit)
+	{
+		theErrorLimit = aErrorLimit;
+	}
+	
+	public int getErrorLimit()
+	{
+		return theErrorLimit;
+	}
+	
+	public int getErrorCount()
+	{
+		return theErrorCount;
+	}
+	
+	// Returns true once the error limit has been reached.
+	public boolean isErrorLimitReached()
+	{
+		return theErrorLimit > 0 && theErrorCount >= theErrorLimit;
 	}
 	
 	public void LogScanError(Token aCurrentToken)
 	{
-		System.out.println("Failed to scan value. Line location: " + aCurrentToken.TokenLineNumber);
+		Log("Failed to scan value. Line location: " + LocationOf(aCurrentToken));
 	}
 	
 	public void LogScanError()
 	{
-		System.out.println("Failed to scan value. Unable to determine line location.");
+		Log("Failed to scan value. Unable to determine line location.");
 	}
 	
-	// Overload of LogParseError for less informative case.
+	// Overload of LogParseError for less informative case. A null token, from an illegal character or the end of the
+	// source, is logged as a scan error.
 	public void LogParseError(Token aCurrentToken) //throws IOException
 	{
-		System.out.println("Failed to parse token value '" + aCurrentToken.TokenValue + "'."
-				+ " Line location: " + aCurrentToken.TokenLineNumber + ".");
+		if(aCurrentToken == null)
+			LogScanError();
+		else
+			Log("Failed to parse token value '" + aCurrentToken.TokenValue + "'."
+					+ " Line location: " + LocationOf(aCurrentToken) + ".");
 	}
 	
 	public void LogSymbolError(String aSymbolKey) //throws IOException
 	{
-		System.out.println("Failed to add symbol for given key '" + aSymbolKey + "'.");
+		Log("Failed to add symbol for given key '" + aSymbolKey + "'.");
+	}
+	
+	// Logs a call of a name with no symbol in scope.
+	public void LogUndeclaredSymbol(Token aName)
+	{
+		Log("Failed to find symbol for name '" + aName.TokenValue + "'. Line location: " + LocationOf(aName) + ".");
 	}
 	
 	public void LogInvalidProcedureParameter(String aCurrentToken) //throws IOException
 	{
-		System.out.println("Failed to run procedure due to invalid input argument: '" + aCurrentToken + "'.");
+		Log("Failed to run procedure due to invalid input argument: '" + aCurrentToken + "'.");
+	}
+	
+	// Prints an error while under the limit. The error reaching the limit is followed by a note that the rest are
+	// dropped.
+	private void Log(String aMessage)
+	{
+		if(isErrorLimitReached())
+			return;
+		
+		theOutput.println(aMessage);
+		theErrorCount++;
+		if(isErrorLimitReached())
+			theOutput.println("Too many errors. Stopped after " + theErrorLimit + ".");
+	}
+	
+	// Line of a token, with its column when the token has a span and a line index is set.
+	private String LocationOf(Token aToken)
+	{
+		if(theLineIndex == null || aToken.TokenStart < 0)
+			return String.valueOf(aToken.TokenLineNumber);
+		
+		return theLineIndex.getLine(aToken.TokenStart) + ", column " + theLineIndex.getColumn(aToken.TokenStart);
 	}
 }
@@ -0,0 +1,197 @@
+package classes;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import objects.TokenType;
+
+// Minimal perfect hash over the reserved words and built-in procedure names, matched case-insensitively.
+public final class KeywordTable
+{
+	// Token types spelled by a keyword. The keyword is the lower case name of the type.
+	private static final TokenType[] KEYWORD_TYPES = {
+			TokenType.PROGRAM, TokenType.IS, TokenType.BEGIN, TokenType.END, TokenType.GLOBAL, TokenType.PROCEDURE,
+			TokenType.IN, TokenType.OUT, TokenType.INOUT, TokenType.INTEGER, TokenType.FLOAT, TokenType.BOOL,
+			TokenType.CHAR, TokenType.STRING, TokenType.IF, TokenType.ELSE, TokenType.THEN, TokenType.TRUE,
+			TokenType.FALSE, TokenType.NOT, TokenType.RETURN, TokenType.FOR,
+			TokenType.PUTBOOL, TokenType.PUTINTEGER, TokenType.PUTFLOAT, TokenType.PUTSTRING, TokenType.PUTCHAR,
+			TokenType.GETBOOL, TokenType.GETINTEGER, TokenType.GETFLOAT, TokenType.GETSTRING, TokenType.GETCHAR};
+	
+	private static final int SIZE = KEYWORD_TYPES.length;
+	private static final int BUCKET_COUNT = SIZE / 2;
+	
+	// Per bucket displacement picking the final slot, and the keyword held by each slot.
+	private static final int[] DISPLACEMENTS = new int[BUCKET_COUNT];
+	private static final char[][] KEYWORDS = new char[SIZE][];
+	private static final TokenType[] TYPES = new TokenType[SIZE];
+	
+	private static final int MIN_LENGTH;
+	private static final int MAX_LENGTH;
+	
+	static
+	{
+		int theMin = Integer.MAX_VALUE;
+		int theMax = 0;
+		for(TokenType theType : KEYWORD_TYPES)
+		{
+			theMin = Math.min(theMin, theType.name().length());
+			theMax = Math.max(theMax, theType.name().length());
+		}
+		MIN_LENGTH = theMin;
+		MAX_LENGTH = theMax;
+		
+		CreateTable();
+	}
+	
+	// Prevent instantiation.
+	private KeywordTable()
+	{
+	}
+	
+	// Returns the keyword type for a run of identifier characters, or IDENTITY when it is not a keyword.
+	public static TokenType Lookup(CharSequence aText)
+	{
+		int theLength = aText.length();
+		if(theLength < MIN_LENGTH || theLength > MAX_LENGTH)
+			return TokenType.IDENTITY;
+		
+		int theHash = Hash(aText);
+		int theSlot = Slot(theHash, DISPLACEMENTS[Bucket(theHash)]);
+		
+		// Confirm the candidate, folding case the same way the hash does.
+		char[] theKeyword = KEYWORDS[theSlot];
+		if(theKeyword.length != theLength)
+			return TokenType.IDENTITY;
+		
+		for(int i = 0; i < theLength; i++)
+		{
+			if((aText.charAt(i) | 0x20) != theKeyword[i])
+				return TokenType.IDENTITY;
+		}
+		
+		return TYPES[theSlot];
+	}
+	
+	// Returns the keyword type for identifier characters stored as ASCII bytes, or IDENTITY when it is not a keyword.
+	public static TokenType Lookup(ByteBuffer aSource, int aOffset, int aLength)
+	{
+		if(aLength < MIN_LENGTH || aLength > MAX_LENGTH)
+			return TokenType.IDENTITY;
+		
+		int theHash = 0x811C9DC5;
+		for(int i = 0; i < aLength; i++)
+		{
+			theHash ^= aSource.get(aOffset + i) | 0x20;
+			theHash *= 0x01000193;
+		}
+		
+		int theSlot = Slot(theHash, DISPLACEMENTS[Bucket(theHash)]);
+		
+		char[] theKeyword = KEYWORDS[theSlot];
+		if(theKeyword.length != aLength)
+			return TokenType.IDENTITY;
+		
+		for(int i = 0; i < aLength; i++)
+		{
+			if((aSource.get(aOffset + i) | 0x20) != theKeyword[i])
+				return TokenType.IDENTITY;
+		}
+		
+		return TYPES[theSlot];
+	}
+	
+	// FNV-1a over the characters with ASCII letters folded to lower case.
+	private static int Hash(CharSequence aText)
+	{
+		int theHash = 0x811C9DC5;
+		for(int i = 0; i < aText.length(); i++)
+		{
+			theHash ^= aText.charAt(i) | 0x20;
+			theHash *= 0x01000193;
+		}
+		return theHash;
+	}
+	
+	// First level bucket for a hash.
+	private static int Bucket(int aHash)
+	{
+		return (aHash & 0x7FFFFFFF) % BUCKET_COUNT;
+	}
+	
+	// Second level slot for a hash and its bucket displacement.
+	private static int Slot(int aHash, int aDisplacement)
+	{
+		int theMix = aHash ^ (aDisplacement * 0x9E3779B9);
+		theMix ^= theMix >>> 16;
+		theMix *= 0x85EBCA6B;
+		theMix ^= theMix >>> 13;
+		theMix *= 0xC2B2AE35;
+		theMix ^= theMix >>> 16;
+		return (theMix & 0x7FFFFFFF) % SIZE;
+	}
+	
+	// Assigns every keyword a distinct slot by searching a displacement for each bucket, largest buckets first.
+	private static void CreateTable()
+	{
+		List<List<Integer>> theBuckets = new ArrayList<List<Integer>>();
+		for(int i = 0; i < BUCKET_COUNT; i++)
+			theBuckets.add(new ArrayList<Integer>());
+		
+		int[] theHashes = new int[SIZE];
+		for(int i = 0; i < SIZE; i++)
+		{
+			theHashes[i] = Hash(KEYWORD_TYPES[i].name());
+			theBuckets.get(Bucket(theHashes[i])).add(i);
+		}
+		
+		Integer[] theOrder = new Integer[BUCKET_COUNT];
+		for(int i = 0; i < BUCKET_COUNT; i++)
+			theOrder[i] = i;
+		Arrays.sort(theOrder, (a, b) -> theBuckets.get(b).size() - theBuckets.get(a).size());
+		
+		boolean[] theTaken = new boolean[SIZE];
+		for(int theBucket : theOrder)
+		{
+			List<Integer> theMembers = theBuckets.get(theBucket);
+			if(theMembers.isEmpty())
+				continue;
+			
+			int theDisplacement = 0;
+			int[] theSlots = new int[theMembers.size()];
+			while(!TrySlots(theMembers, theHashes, theDisplacement, theTaken, theSlots))
+			{
+				if(++theDisplacement == 1 << 20)
+					throw new IllegalStateException("No perfect hash displacement for keyword bucket " + theBucket);
+			}
+			
+			DISPLACEMENTS[theBucket] = theDisplacement;
+			for(int i = 0; i < theSlots.length; i++)
+			{
+				int theKeyword = theMembers.get(i);
+				theTaken[theSlots[i]] = true;
+				KEYWORDS[theSlots[i]] = KEYWORD_TYPES[theKeyword].name().toLowerCase().toCharArray();
+				TYPES[theSlots[i]] = KEYWORD_TYPES[theKeyword];
+			}
+		}
+	}
+	
+	// Fills aSlots for the bucket members with a displacement. Returns false if any slot collides.
+	private static boolean TrySlots(List<Integer> aMembers, int[] aHashes, int aDisplacement, boolean[] aTaken, int[] aSlots)
+	{
+		for(int i = 0; i < aSlots.length; i++)
+		{
+			aSlots[i] = Slot(aHashes[aMembers.get(i)], aDisplacement);
+			if(aTaken[aSlots[i]])
+				return false;
+			
+			for(int j = 0; j < i; j++)
+			{
+				if(aSlots[j] == aSlots[i])
+					return false;
+			}
+		}
+		return true;
+	}
+}
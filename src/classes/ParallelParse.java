@@ -0,0 +1,398 @@
+package classes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import objects.SymbolTable;
+import objects.SyntaxTree;
+import objects.TokenBuffer;
+import objects.TokenType;
+
+// Parses a buffered program with its procedure bodies spread over a ForkJoinPool. A pass over the token kinds pairs
+// every 'procedure' with its 'end procedure' to find the statements of each body. The program is then parsed with
+// those statements skipped, which puts every declaration and procedure header in the symbol table, and the bodies are
+// parsed concurrently against snapshots of the table taken where they were skipped. Each body's messages are printed
+// where a sequential parse would print them. A body that does not end at the 'end' found for it, or fails, means the
+// pass guessed wrong, and the program is parsed again sequentially. With a ProcedureCache, bodies parsed before from
+// the same text against the same symbols are taken from it instead of being parsed.
+public class ParallelParse
+{
+	// Private properties.
+	private TokenBuffer theTokens;
+	private ErrorLogger theLogger;
+	private SymbolTable theSymbolTable;
+	private ForkJoinPool thePool;
+	private PrintStream theTarget;
+	private boolean isTraced;
+	private boolean isProgramValid;
+	private ProcedureCache theCache;
+	
+	private TokenCursor theCursor;
+	private ByteArrayOutputStream theOutput;
+	private ErrorLogger theOutputLogger;
+	private Translator theTranslator;
+	
+	// Token index of the first statement of every body and of the 'end' after it, ordered by start.
+	private int[] theBodyStarts;
+	private int[] theBodyEnds;
+	private int theBodyCount;
+	
+	// For each skipped body, the symbols it sees, the length of the program's output where it goes, and its block node
+	// in the program's tree, or NONE once that node is dropped.
+	private BodyTask[] theTasks;
+	private int[] theOutputOffsets;
+	private int[] theBlockNodes;
+	private int[] theDeferredBodies;
+	private int theDeferredCount;
+	
+	// Constructor.
+	public ParallelParse(TokenBuffer aTokens, ErrorLogger aLogger, SymbolTable aSymbolTable, ForkJoinPool aPool)
+	{
+		theTokens = aTokens;
+		theLogger = aLogger;
+		theSymbolTable = aSymbolTable;
+		thePool = aPool;
+		theTarget = System.out;
+		isTraced = false;
+		theCache = null;
+		
+		FindBodies();
+		
+		theTasks = new BodyTask[theBodyCount];
+		theOutputOffsets = new int[theBodyCount];
+		theBlockNodes = new int[theBodyCount];
+		theDeferredBodies = new int[theBodyCount];
+		theDeferredCount = 0;
+	}
+	
+	// Prints the result and errors to aOutput instead of standard output, and the constructs recognized if aTraced.
+	public void setOutput(PrintStream aOutput, boolean aTraced)
+	{
+		theTarget = aOutput;
+		isTraced = aTraced;
+	}
+	
+	// Reuses the bodies kept in aCache, and keeps the bodies parsed in it. The cache may be shared by the parses of
+	// successive versions of a program, one at a time.
+	public void setCache(ProcedureCache aCache)
+	{
+		theCache = aCache;
+	}
+	
+	// Parses the program and prints what a sequential parse prints. Returns the parser holding the program's tree.
+	public Parse ParseTokens() throws Exception
+	{
+		SymbolTable theTable = theSymbolTable;
+		if(theBodyCount > 0)
+		{
+			Parse theParser = ParseSkippingBodies();
+			if(theParser != null && ParseBodies() && IsUnderErrorLimit())
+			{
+				// As in a sequential parse, an error in a body makes the program invalid.
+				boolean isValid = isProgramValid && ErrorCount() == 0;
+				PrintOutput();
+				theTarget.println(isValid);
+				if(isValid && theTranslator != null)
+					theTranslator.WriteCodeToFile();
+				
+				SyntaxTree theSyntaxTree = theParser.getSyntaxTree();
+				for(int i = 0; i < theDeferredCount; i++)
+				{
+					BodyTask theTask = theTasks[theDeferredBodies[i]];
+					if(theBlockNodes[theTask.Body] == SyntaxTree.NONE)
+						continue;
+					
+					// A reused body's tree holds the offsets and lines of the text it was parsed from.
+					int theStart = theBodyStarts[theTask.Body];
+					int theStartShift = theTask.Cached == null ? 0 : theTokens.getStart(theStart) - theTask.Cached.Start;
+					int theLineShift = theTask.Cached == null ? 0 : theTokens.getLine(theStart) - theTask.Cached.Line;
+					theSyntaxTree.CopyChildren(theBlockNodes[theTask.Body], theTask.Tree, theTask.Tree.getRoot(), theStartShift, theLineShift);
+				}
+				return theParser;
+			}
+			
+			theTable = new SymbolTable(theLogger, theSymbolTable.getNames());
+		}
+		
+		// No bodies to spread, a body was not where the pass put it, or the errors together reach the limit at which
+		// a sequential parse stops.
+		Parse theParser = new Parse(new TokenCursor(theTokens), theLogger, theTable);
+		theParser.setOutput(theTarget);
+		theParser.setListener(ListenerFor(theTarget));
+		theParser.ParseTokens();
+		return theParser;
+	}
+	
+	// Returns the body whose first statement is token aIndex, or -1.
+	int FindBody(int aIndex)
+	{
+		int theBody = Arrays.binarySearch(theBodyStarts, 0, theBodyCount, aIndex);
+		return theBody >= 0 && theTasks[theBody] == null ? theBody : -1;
+	}
+	
+	// Takes a body skipped by the parser, with the symbols it sees and its empty block node. Moves the parser's cursor
+	// to the body's 'end' and returns that token's index.
+	int DeferBody(int aBody, SymbolTable aSymbolTable, int aBlockNode)
+	{
+		theTasks[aBody] = new BodyTask(aBody, aSymbolTable);
+		theOutputOffsets[aBody] = theOutput.size();
+		theBlockNodes[aBody] = aBlockNode;
+		theDeferredBodies[theDeferredCount++] = aBody;
+		
+		theCursor.Seek(theBodyEnds[aBody]);
+		return theBodyEnds[aBody];
+	}
+	
+	// Takes the code of a valid program, written only once its bodies have parsed without errors.
+	void DeferCode(Translator aTranslator)
+	{
+		theTranslator = aTranslator;
+	}
+	
+	// Takes the parser's result for the program without its bodies, printed once their errors are known.
+	void DeferResult(boolean aValid)
+	{
+		isProgramValid = aValid;
+	}
+	
+	// Forgets the block nodes of skipped bodies that the parser dropped from its tree, from aNodeMark on.
+	void DropBodies(int aNodeMark)
+	{
+		for(int i = theDeferredCount - 1; i >= 0; i--)
+		{
+			int theBody = theDeferredBodies[i];
+			if(theBlockNodes[theBody] == SyntaxTree.NONE)
+				continue;
+			if(theBlockNodes[theBody] < aNodeMark)
+				break;
+			theBlockNodes[theBody] = SyntaxTree.NONE;
+		}
+	}
+	
+	// Pairs each 'procedure' with its 'end procedure'. The first 'begin' met while a procedure is the innermost one
+	// open starts its body. Nested procedures end before the body of the one holding them starts.
+	private void FindBodies()
+	{
+		int theProcedure = TokenType.PROCEDURE.ordinal();
+		int theBegin = TokenType.BEGIN.ordinal();
+		int theEnd = TokenType.END.ordinal();
+		
+		// Start of the body of each open procedure, or -1 before its 'begin'.
+		int[] theOpenStarts = new int[16];
+		int theOpenCount = 0;
+		
+		long[] theBodies = new long[16];
+		int theCount = 0;
+		
+		int theTokenCount = theTokens.getCount();
+		for(int i = 0; i < theTokenCount; i++)
+		{
+			int theKind = theTokens.getKind(i);
+			if(theKind == theProcedure && (i == 0 || theTokens.getKind(i - 1) != theEnd))
+			{
+				if(theOpenCount == theOpenStarts.length)
+					theOpenStarts = Arrays.copyOf(theOpenStarts, theOpenCount * 2);
+				theOpenStarts[theOpenCount++] = -1;
+			}
+			else if(theKind == theBegin && theOpenCount > 0 && theOpenStarts[theOpenCount - 1] < 0)
+			{
+				theOpenStarts[theOpenCount - 1] = i + 1;
+			}
+			else if(theKind == theEnd && theOpenCount > 0 && i + 1 < theTokenCount && theTokens.getKind(i + 1) == theProcedure)
+			{
+				int theStart = theOpenStarts[--theOpenCount];
+				if(theStart < 0)
+					continue;
+				
+				if(theCount == theBodies.length)
+					theBodies = Arrays.copyOf(theBodies, theCount * 2);
+				theBodies[theCount++] = (long) theStart << 32 | i;
+			}
+		}
+		
+		Arrays.sort(theBodies, 0, theCount);
+		theBodyStarts = new int[theCount];
+		theBodyEnds = new int[theCount];
+		for(int i = 0; i < theCount; i++)
+		{
+			theBodyStarts[i] = (int) (theBodies[i] >>> 32);
+			theBodyEnds[i] = (int) theBodies[i];
+		}
+		theBodyCount = theCount;
+	}
+	
+	// Parses the program with the bodies skipped, into theOutput. Returns the parser, or null if it failed.
+	private Parse ParseSkippingBodies()
+	{
+		theCursor = new TokenCursor(theTokens);
+		theTranslator = null;
+		isProgramValid = false;
+		theOutput = new ByteArrayOutputStream();
+		PrintStream theStream = new PrintStream(theOutput);
+		theOutputLogger = new ErrorLogger(theLogger, theStream);
+		theSymbolTable.setErrorLogger(theOutputLogger);
+		
+		try
+		{
+			Parse theParser = new Parse(theCursor, theOutputLogger, theSymbolTable);
+			theParser.setOutput(theStream);
+			theParser.setListener(ListenerFor(theStream));
+			theParser.setBodyParser(this);
+			theParser.ParseTokens();
+			return theParser;
+		}
+		catch(Exception | StackOverflowError e)
+		{
+			return null;
+		}
+		finally
+		{
+			theSymbolTable.setErrorLogger(theLogger);
+		}
+	}
+	
+	// Parses the skipped bodies not found in the cache on the pool, and keeps those without errors. Returns true if each
+	// ended at its 'end'.
+	private boolean ParseBodies()
+	{
+		if(theCache != null)
+			theCache.BeginParse();
+		
+		final List<BodyTask> theParsed = new ArrayList<BodyTask>(theDeferredCount);
+		for(int i = 0; i < theDeferredCount; i++)
+		{
+			BodyTask theTask = theTasks[theDeferredBodies[i]];
+			if(theCache != null)
+			{
+				ProcedureCache.Entry theEntry = theCache.Find(theTokens, theBodyStarts[theTask.Body], theBodyEnds[theTask.Body],
+						theTask.Symbols, isTraced);
+				if(theEntry != null)
+				{
+					theTask.Reuse(theEntry);
+					continue;
+				}
+				theTask.Symbols.RecordLookups(theCache.getSignatures());
+			}
+			theParsed.add(theTask);
+		}
+		
+		thePool.invoke(new RecursiveAction()
+		{
+			protected void compute()
+			{
+				invokeAll(theParsed);
+			}
+		});
+		
+		for(int i = 0; i < theDeferredCount; i++)
+		{
+			BodyTask theTask = theTasks[theDeferredBodies[i]];
+			if(theTask.End != theBodyEnds[theTask.Body])
+				return false;
+			
+			if(theCache != null && theTask.Cached == null && theTask.Logger.getErrorCount() == 0)
+				theCache.Put(theTokens, theBodyStarts[theTask.Body], theTask.End, theTask.Symbols, isTraced, theTask.Output.toByteArray(),
+						theTask.Tree);
+		}
+		return true;
+	}
+	
+	// Returns true if the program and its bodies logged fewer errors than the limit.
+	private boolean IsUnderErrorLimit()
+	{
+		return theLogger.getErrorLimit() <= 0 || ErrorCount() < theLogger.getErrorLimit();
+	}
+	
+	// Returns the number of errors the program and its bodies logged.
+	private int ErrorCount()
+	{
+		int theCount = theOutputLogger.getErrorCount();
+		for(int i = 0; i < theDeferredCount; i++)
+			theCount += theTasks[theDeferredBodies[i]].Logger.getErrorCount();
+		return theCount;
+	}
+	
+	// Prints the program's output with each body's output where the body was skipped.
+	private void PrintOutput()
+	{
+		byte[] theBytes = theOutput.toByteArray();
+		int thePosition = 0;
+		for(int i = 0; i < theDeferredCount; i++)
+		{
+			int theBody = theDeferredBodies[i];
+			theTarget.write(theBytes, thePosition, theOutputOffsets[theBody] - thePosition);
+			theTarget.write(theTasks[theBody].Output.toByteArray(), 0, theTasks[theBody].Output.size());
+			thePosition = theOutputOffsets[theBody];
+		}
+		theTarget.write(theBytes, thePosition, theBytes.length - thePosition);
+		theTarget.flush();
+	}
+	
+	// Returns the listener for a parse printing to aOutput. Traced events are printed with the parse's errors, so the
+	// pieces of output can be put together in order.
+	private ParseListener ListenerFor(PrintStream aOutput)
+	{
+		return isTraced ? new PrintParseListener(aOutput) : ParseListener.NONE;
+	}
+	
+	// Parses the statements of one body with its own parser, output and tree.
+	private class BodyTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		int Body;
+		SymbolTable Symbols;
+		ByteArrayOutputStream Output;
+		PrintStream Stream;
+		ErrorLogger Logger;
+		SyntaxTree Tree;
+		
+		// Index of the token that ended the statements, or -1 if the parse failed.
+		int End;
+		
+		// The body reused from the cache, or null if it is parsed.
+		ProcedureCache.Entry Cached;
+		
+		BodyTask(int aBody, SymbolTable aSymbols)
+		{
+			Body = aBody;
+			Symbols = aSymbols;
+			Output = new ByteArrayOutputStream();
+			Stream = new PrintStream(Output);
+			Logger = new ErrorLogger(theLogger, Stream);
+			End = -1;
+			Cached = null;
+		}
+		
+		// Takes the output and tree of a body reused from the cache instead of parsing it.
+		void Reuse(ProcedureCache.Entry aEntry)
+		{
+			Cached = aEntry;
+			Output.write(aEntry.Output, 0, aEntry.Output.length);
+			Tree = aEntry.Tree;
+			End = theBodyStarts[Body] + aEntry.TokenCount;
+		}
+		
+		protected void compute()
+		{
+			try
+			{
+				int theStart = theBodyStarts[Body];
+				Parse theParser = new Parse(new TokenCursor(theTokens, theStart), Logger, Symbols);
+				theParser.setOutput(Stream);
+				theParser.setListener(ListenerFor(Stream));
+				End = theStart + theParser.ParseProcedureBody();
+				Tree = theParser.getSyntaxTree();
+			}
+			catch(Exception | StackOverflowError e)
+			{
+				End = -1;
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package classes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import objects.NameTable;
+import objects.TokenBuffer;
+
+// Lexes a memory-mapped source in newline aligned chunks on a ForkJoinPool and stitches the chunk buffers together.
+// No token reaches past a newline, so a chunk boundary only cuts through a block comment. Chunks are lexed as if
+// they started outside one, and a chunk following one that ends inside a comment is lexed again from that depth.
+public final class ParallelScan
+{
+	// Default number of source bytes per chunk.
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 18;
+	
+	// Prevent instantiation.
+	private ParallelScan()
+	{
+	}
+	
+	// Scans aSource from aStart to aEnd with lines numbered from aFirstLine, interning identifiers in aNames. Matches a
+	// sequential Scan token for token.
+	public static TokenBuffer ScanAll(ByteBuffer aSource, int aStart, int aEnd, int aFirstLine, NameTable aNames, ForkJoinPool aPool, int aChunkSize) throws IOException
+	{
+		int[] theBounds = SplitAtNewlines(aSource, aStart, aEnd, Math.max(1, aChunkSize));
+		
+		final ChunkTask[] theTasks = new ChunkTask[theBounds.length - 1];
+		for(int i = 0; i < theTasks.length; i++)
+			theTasks[i] = new ChunkTask(aSource, theBounds[i], theBounds[i + 1], aNames);
+		
+		try
+		{
+			aPool.invoke(new RecursiveAction()
+			{
+				protected void compute()
+				{
+					invokeAll(theTasks);
+				}
+			});
+		}
+		catch(UncheckedIOException e)
+		{
+			throw e.getCause();
+		}
+		
+		// Stitch the chunks in order, re-lexing any chunk that starts inside a comment.
+		TokenBuffer theBuffer = new TokenBuffer(aSource);
+		int theLineOffset = aFirstLine - 1;
+		int theOpenDepth = 0;
+		
+		for(ChunkTask theTask : theTasks)
+		{
+			if(theOpenDepth > 0)
+				theTask.Scan(theOpenDepth);
+			
+			theBuffer.AddAll(theTask.Tokens, 0, theTask.Tokens.getCount(), 0, theLineOffset);
+			
+			theLineOffset += theTask.NewlineCount;
+			theOpenDepth = theTask.OpenDepth;
+		}
+		
+		return theBuffer;
+	}
+	
+	// Returns chunk bounds, each chunk ending just after the first newline at least aChunkSize bytes past its start.
+	private static int[] SplitAtNewlines(ByteBuffer aSource, int aStart, int aEnd, int aChunkSize)
+	{
+		int[] theBounds = new int[16];
+		int theCount = 0;
+		theBounds[theCount++] = aStart;
+		
+		int thePosition = aStart;
+		while(thePosition < aEnd)
+		{
+			int theCut = (int) Math.min((long) thePosition + aChunkSize, aEnd);
+			while(theCut < aEnd && aSource.get(theCut - 1) != '\n')
+				theCut++;
+			
+			if(theCount == theBounds.length)
+				theBounds = Arrays.copyOf(theBounds, theCount * 2);
+			theBounds[theCount++] = theCut;
+			thePosition = theCut;
+		}
+		
+		return Arrays.copyOf(theBounds, theCount);
+	}
+	
+	// Lexes one chunk. Lines are numbered from one within the chunk.
+	private static class ChunkTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final ByteBuffer Source;
+		private final int Start;
+		private final int End;
+		private final NameTable Names;
+		
+		TokenBuffer Tokens;
+		int NewlineCount;
+		int OpenDepth;
+		
+		ChunkTask(ByteBuffer aSource, int aStart, int aEnd, NameTable aNames)
+		{
+			Source = aSource;
+			Start = aStart;
+			End = aEnd;
+			Names = aNames;
+		}
+		
+		// Speculatively lexes the chunk as starting outside any comment.
+		protected void compute()
+		{
+			try
+			{
+				Scan(0);
+			}
+			catch(IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+		
+		// Lexes the chunk, starting inside a block comment aOpenDepth levels deep.
+		void Scan(int aOpenDepth) throws IOException
+		{
+			Scan theScanner = new Scan(Source, Start, End, Names);
+			theScanner.ResumeBlockComment(aOpenDepth);
+			
+			Tokens = theScanner.ScanAll();
+			NewlineCount = theScanner.GetLineNumber() - 1;
+			OpenDepth = theScanner.GetOpenCommentDepth();
+		}
+	}
+}
@@ -1,59 +1,206 @@
 package classes;
 
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 
+import objects.NameTable;
+import objects.ParseEvent;
 import objects.Symbol;
 import objects.SymbolTable;
+import objects.SyntaxTree;
 import objects.Token;
 import objects.TokenType;
 
 public class Parse
 {
 	// Private properties.
-	private Scan theScanner;
+	private TokenLookahead theLookahead;
 	private Token theCurrentToken;
-	private Token theNextToken;
 	private ErrorLogger theLogger;
 	private SymbolTable theSymbolTable;
 	
 	private Symbol theCurrentSymbol;
 	private Translator theTranslator;
+	private PrintStream theOutput;
+	private ParseListener theListener;
+	
+	// Index of the current token among the tokens read from the scanner.
+	private int theTokenIndex;
+	
+	// Takes the procedure bodies to parse in parallel, or null when every body is parsed here.
+	private ParallelParse theBodyParser;
+	
+	// Expression operators waiting for their right operand, their precedences, and the pending node count when they
+	// were pushed. Open parentheses are marked.
+	private Token[] theOperatorTokens;
+	private int[] theOperatorPrecedences;
+	private int[] theOperatorMarks;
+	private int theOperatorCount;
+	
+	// Phases of the open if and for blocks, innermost last, with the pending index of each block's statement node and
+	// of the first statement of its current part.
+	private int[] theBlockPhases;
+	private int[] theBlockStarts;
+	private int[] theBlockParts;
+	private int theBlockCount;
+	
+	// Tree of the parsed program, and the nodes parsed so far that are waiting for their parent.
+	private SyntaxTree theSyntaxTree;
+	private int[] thePendingNodes;
+	private int thePendingCount;
+	
+	// Operator precedences. Higher binds tighter.
+	private static final int PARENTHESIS_MARK = -1;
+	private static final int LOGICAL_PRECEDENCE = 0;
+	private static final int ADDING_PRECEDENCE = 1;
+	private static final int RELATION_PRECEDENCE = 2;
+	private static final int MULTIPLYING_PRECEDENCE = 3;
+	private static final int NEGATION_PRECEDENCE = 4;
+	
+	// Block phases, and the results of continuing a block.
+	private static final int IF_THEN_FIRST = 0;
+	private static final int IF_THEN = 1;
+	private static final int IF_ELSE_FIRST = 2;
+	private static final int IF_ELSE = 3;
+	private static final int FOR_BODY = 4;
+	private static final int BLOCK_OPEN = 0;
+	private static final int BLOCK_VALID = 1;
+	private static final int BLOCK_INVALID = 2;
+	
+	// Synchronization sets. Recovery from an error skips to the first token in the set of the construct that failed,
+	// and past it if it is a semicolon. The other tokens start or end the constructs around it, and are left to them.
+	private static final EnumSet<TokenType> DECLARATION_SYNC =
+			EnumSet.of(TokenType.SEMICOLON, TokenType.BEGIN, TokenType.PROCEDURE);
+	private static final EnumSet<TokenType> STATEMENT_SYNC =
+			EnumSet.of(TokenType.SEMICOLON, TokenType.END, TokenType.ELSE);
 	
 	// Constructor.
-	public Parse(Scan aScanner, ErrorLogger aErrorLogger, SymbolTable aSymbolTable) throws Exception
+	public Parse(TokenSource aScanner, ErrorLogger aErrorLogger, SymbolTable aSymbolTable) throws Exception
 	{
+		theOutput = System.out;
+		
 		// Make sure scanner is not null.
 		if(aScanner == null)
 		{
-			System.out.println("Scanner provided to parser is null. Exiting.");
+			theOutput.println("Scanner provided to parser is null. Exiting.");
 			throw new Exception();
 		}
 		
 		// Initialize private properties.
 		theLogger = aErrorLogger;
-		theScanner = aScanner;
+		theLookahead = new TokenLookahead(aScanner);
 		theSymbolTable = aSymbolTable;
-		theCurrentToken = theScanner.GetToken();
-		theNextToken = theScanner.GetToken();
+		theCurrentToken = theLookahead.Peek(0);
+		theTokenIndex = 0;
 		
 		theCurrentSymbol = null;
 		theTranslator = null;
+		theBodyParser = null;
+		theListener = ParseListener.NONE;
+		
+		theOperatorTokens = new Token[16];
+		theOperatorPrecedences = new int[16];
+		theOperatorMarks = new int[16];
+		theOperatorCount = 0;
+		
+		theBlockPhases = new int[16];
+		theBlockStarts = new int[16];
+		theBlockParts = new int[16];
+		theBlockCount = 0;
+		
+		theSyntaxTree = new SyntaxTree();
+		thePendingNodes = new int[64];
+		thePendingCount = 0;
 	}
 	
 	// Calls functionality to test validity of tokens obtained through scanner method calls.
 	public void ParseTokens() throws IOException
 	{	
-		boolean result = isValidProgram();
-		System.out.println(result);
+		boolean result = false;
+		try
+		{
+			result = isValidProgram();
+		}
+		catch(ErrorLimitException e)
+		{
+			// The logger has reported the limit.
+		}
+		
+		// With bodies skipped, the result waits for their errors.
+		if(theBodyParser != null)
+			theBodyParser.DeferResult(result);
+		else
+			theOutput.println(result);
+	}
+	
+	// Returns the tree of the parsed program. Its root is the program node, or NONE if no program header was read.
+	public SyntaxTree getSyntaxTree()
+	{
+		return theSyntaxTree;
+	}
+	
+	// Prints the parser's result to aOutput instead of standard output.
+	public void setOutput(PrintStream aOutput)
+	{
+		theOutput = aOutput;
+	}
+	
+	// Reports each construct the parser recognizes to aListener. By default they are not reported.
+	public void setListener(ParseListener aListener)
+	{
+		theListener = aListener;
+	}
+	
+	// Hands procedure bodies found by aBodyParser to it instead of parsing them. The scanner must be its cursor.
+	void setBodyParser(ParallelParse aBodyParser)
+	{
+		theBodyParser = aBodyParser;
+	}
+	
+	// Parses the statements of a procedure body from the current token on. Returns the index of the token that ended
+	// them, counted from the first token read.
+	int ParseProcedureBody() throws IOException
+	{
+		parseStatements();
+		theSyntaxTree.setRoot(thePendingNodes[thePendingCount - 1]);
+		return theTokenIndex;
 	}
 	
-	// Update the global tokens to allow "look ahead" functionality.
+	// Update the global tokens to allow "look ahead" functionality. Stops the parse once the error limit is reached.
 	private void updateToken() throws IOException
 	{
-		theCurrentToken = theNextToken;
-		theNextToken = theScanner.GetToken();
+		skipTokens(1);
+	}
+	
+	// Moves the current token aCount tokens on, such as past an operator to its right operand.
+	private void skipTokens(int aCount) throws IOException
+	{
+		if(theLogger.isErrorLimitReached())
+			throw new ErrorLimitException(theLogger.getErrorLimit());
+		
+		theLookahead.Advance(aCount);
+		theCurrentToken = theLookahead.Peek(0);
+		theTokenIndex += aCount;
+	}
+	
+	// Returns the NameTable id of a name token. Identifiers carry theirs from the scanner, and keywords are named by
+	// their type.
+	private int nameOf(Token aToken)
+	{
+		if(aToken.NameId >= 0)
+			return aToken.NameId;
+		if(aToken.TokenType == TokenType.IDENTITY)
+			return theSymbolTable.getNames().Intern(aToken.TokenValue.toString().toLowerCase());
+		return NameTable.IdOf(aToken.TokenType);
+	}
+	
+	// Returns the token after the current one.
+	private Token nextToken() throws IOException
+	{
+		return theLookahead.Peek(1);
 	}
 	
 	// Determine if valid program.
@@ -63,7 +210,7 @@ public class Parse
 		boolean isValid = false;
 		
 		// If the current token is program type, confirm if valid program header and body exist.
-		if(theCurrentToken.TokenType == TokenType.PROGRAM)
+		if(isCurrentToken(TokenType.PROGRAM))
 		{
 			// Set Symbol Type for table. 
 			theSymbolTable.CURR_SYMBOL.setType(theCurrentToken.TokenType);
@@ -72,19 +219,24 @@ public class Parse
 			updateToken();
 			if(isProgramHeader())
 			{
-				System.out.println("Program Header!");
+				theListener.Event(ParseEvent.PROGRAM_HEADER);
 				// Update current token before checking if program body.
 				updateToken();
 				if(isProgramBody())
 				{
 					// Update current token before checking if end of program.
-					if(theNextToken != null)
+					if(nextToken() != null)
 						updateToken();
-					if(theCurrentToken.TokenType == TokenType.PERIOD)
+					if(isCurrentToken(TokenType.PERIOD))
 					{
 						updateToken();
-						isValid = true;
-						theTranslator.WriteCodeToFile();
+						
+						// A program that logged errors is invalid, though the parse recovered from them.
+						isValid = theLogger.getErrorCount() == 0;
+						if(isValid && theBodyParser == null)
+							theTranslator.WriteCodeToFile();
+						else if(isValid)
+							theBodyParser.DeferCode(theTranslator);
 					}
 					else
 						theLogger.LogParseError(theCurrentToken);
@@ -94,6 +246,13 @@ public class Parse
 		else
 			theLogger.LogParseError(theCurrentToken);
 		
+		// The program node takes the declarations and statements that were parsed.
+		if(thePendingCount > 0)
+		{
+			attachChildren(0);
+			theSyntaxTree.setRoot(thePendingNodes[0]);
+		}
+		
 		return isValid;
 	}
 	
@@ -103,14 +262,15 @@ public class Parse
 		boolean isValid = false;
 		
 		// Check if current token matches given syntax.
-		if(theCurrentToken.TokenType == TokenType.IDENTITY)
+		if(isCurrentToken(TokenType.IDENTITY))
 		{
 			// Update scope key.
-			theSymbolTable.AddToScopeKey(theCurrentToken.TokenValue);
-			theTranslator = new Translator(theCurrentToken.TokenValue);
+			theSymbolTable.AddToScopeKey(nameOf(theCurrentToken));
+			theTranslator = new Translator(theCurrentToken.TokenValue.toString());
+			pushNode(SyntaxTree.PROGRAM, theCurrentToken, thePendingCount);
 			
 			updateToken();
-			if(theCurrentToken.TokenType == TokenType.IS)
+			if(isCurrentToken(TokenType.IS))
 			{
 				// Update current symbol line number to be end of header. Header of program is position 0 (always).
 				theSymbolTable.CURR_SYMBOL.setLineNumber(theCurrentToken.TokenLineNumber);
@@ -138,45 +298,23 @@ public class Parse
 		while(isDeclaration())
 		{
 			updateToken();
-			if(theCurrentToken.TokenType == TokenType.SEMICOLON)
+			if(isCurrentToken(TokenType.SEMICOLON))
 			{
-				System.out.println("Declaration!");
+				theListener.Event(ParseEvent.DECLARATION);
 				updateToken();
 			}
 			else
 			{
-				theLogger.LogParseError(theCurrentToken);
-				while(theCurrentToken.TokenType != TokenType.SEMICOLON)
-				{
-					updateToken();
-				}
-				updateToken();
+				recoverTo(DECLARATION_SYNC);
 			}
 		}
 		
-		if(theCurrentToken.TokenType == TokenType.BEGIN)
+		if(isCurrentToken(TokenType.BEGIN))
 		{	
-			System.out.println("Begin!");
+			theListener.Event(ParseEvent.BEGIN);
 			updateToken();
 			
-			while(isStatement())
-			{
-				updateToken();
-				if(theCurrentToken.TokenType == TokenType.SEMICOLON)
-				{
-					System.out.println("Statement!");
-					updateToken();
-				}
-				else
-				{
-					theLogger.LogParseError(theCurrentToken);
-					while(theCurrentToken.TokenType != TokenType.SEMICOLON)
-					{
-						updateToken();
-					}
-					updateToken();
-				}
-			}
+			parseStatements();
 			
 			if(theCurrentToken == null)
 			{
@@ -184,12 +322,12 @@ public class Parse
 				return isValid;
 			}
 			
-			if(theCurrentToken.TokenType == TokenType.END)
+			if(isCurrentToken(TokenType.END))
 			{
 				updateToken();
-				if(theCurrentToken.TokenType == TokenType.PROGRAM)
+				if(isCurrentToken(TokenType.PROGRAM))
 				{
-					System.out.println("End program!");
+					theListener.Event(ParseEvent.END_PROGRAM);
 					isValid = true;
 				}
 				else
@@ -204,6 +342,26 @@ public class Parse
 		return isValid;
 	}
 	
+	// Parses statements up to the first token that does not start one, into a block node.
+	private void parseStatements() throws IOException
+	{
+		int theStart = thePendingCount;
+		while(isStatement())
+		{
+			updateToken();
+			if(isCurrentToken(TokenType.SEMICOLON))
+			{
+				theListener.Event(ParseEvent.STATEMENT);
+				updateToken();
+			}
+			else
+			{
+				recoverTo(STATEMENT_SYNC);
+			}
+		}
+		pushNode(SyntaxTree.BLOCK, null, theStart);
+	}
+	
 	// Determine if type of declaration.
 	private boolean isDeclaration() throws IOException
 	{	
@@ -214,19 +372,25 @@ public class Parse
 	private boolean isGlobalDeclaration() throws IOException
 	{
 		boolean isGlobal = false;
+		Token theGlobal = theCurrentToken;
+		int theStart = thePendingCount;
 		
-		if(theCurrentToken.TokenType == TokenType.GLOBAL)
+		if(isCurrentToken(TokenType.GLOBAL))
 		{
 			isGlobal = true;
 			updateToken();
-			System.out.println("Global!");
+			theListener.Event(ParseEvent.GLOBAL);
 		}
 		
-		// Determine declaration type.
-		if(isProcedureDeclaration(isGlobal))
-			return true;
-		else if(isVariableDeclaration(isGlobal))
+		// Determine declaration type. A null token starts none, also where a failed procedure declaration stops.
+		if(theCurrentToken == null)
+			return false;
+		if(isProcedureDeclaration(isGlobal) || theCurrentToken != null && isVariableDeclaration(isGlobal))
+		{
+			if(isGlobal && thePendingCount > theStart)
+				pushNode(SyntaxTree.GLOBAL, theGlobal, theStart);
 			return true;
+		}
 		else
 			return false;
 	}
@@ -236,6 +400,9 @@ public class Parse
 	{
 		// Initialize return value to false.
 		boolean isValid = false;
+		Token theTypeMark = theCurrentToken;
+		int theStart = thePendingCount;
+		int theNodeMark = theSyntaxTree.getCount();
 		
 		if(aGlobal)
 		{
@@ -247,14 +414,20 @@ public class Parse
 			theSymbolTable.CURR_SYMBOL.setType(theCurrentToken.TokenType);
 			
 			updateToken();
-			if(theCurrentToken.TokenType == TokenType.IDENTITY)
+			if(isCurrentToken(TokenType.IDENTITY))
 			{
-				theSymbolTable.AddToScopeKey(theCurrentToken.TokenValue);
+				theSymbolTable.AddToScopeKey(nameOf(theCurrentToken));
 				theSymbolTable.CURR_SYMBOL.setLineNumber(theCurrentToken.TokenLineNumber);
+				pushNode(SyntaxTree.NAME, theCurrentToken, thePendingCount);
 				
 				try
 				{
-					if(theNextToken.TokenType == TokenType.LEFT_BRACKET)
+					// An illegal character after the name skips the declaration, as a failed one does.
+					if(nextToken() == null)
+					{
+						isValid = isSkippedDeclaration(theStart, theNodeMark);
+					}
+					else if(isNextToken(TokenType.LEFT_BRACKET))
 					{
 						updateToken();
 						if(isBoundStatement())
@@ -274,6 +447,7 @@ public class Parse
 								theTranslator.theCurrentBody.add(aDeclaration);
 								theSymbolTable.RemoveFromScopeKey();
 							}
+							pushNode(SyntaxTree.VARIABLE, theTypeMark, theStart);
 							isValid = true;
 						}
 					}
@@ -295,38 +469,50 @@ public class Parse
 							theSymbolTable.RemoveFromScopeKey();
 						}
 						
+						pushNode(SyntaxTree.VARIABLE, theTypeMark, theStart);
 						isValid = true;
 					}
 				}
 				catch(Exception e)
 				{
-					theLogger.LogScanError(theCurrentToken);
-					updateToken();
-					while(theNextToken != null && theNextToken.TokenType != TokenType.SEMICOLON)
-						updateToken();
-					isValid = true;
+					isValid = isSkippedDeclaration(theStart, theNodeMark);
 				}
 			}
 		}
 		// Invalid type provided.
-		else if (theCurrentToken.TokenType == TokenType.IDENTITY && theNextToken.TokenType == TokenType.IDENTITY)
+		else if (isCurrentToken(TokenType.IDENTITY) && isNextToken(TokenType.IDENTITY))
 		{
 			theLogger.LogParseError(theCurrentToken);
-			while(theNextToken.TokenType != TokenType.SEMICOLON)
-				updateToken();
+			skipBefore(DECLARATION_SYNC);
 			isValid = true;
 		}
 		
+		// A declaration that did not finish leaves nothing in the tree.
+		if(!isValid)
+			rollbackNodes(theStart, theNodeMark);
+		
 		return isValid;
 	}
 	
+	// Logs a scan error at the current token and skips the declaration it is in, which is left out of the tree.
+	private boolean isSkippedDeclaration(int aStart, int aNodeMark) throws IOException
+	{
+		rollbackNodes(aStart, aNodeMark);
+		theLogger.LogScanError(theCurrentToken);
+		updateToken();
+		skipBefore(DECLARATION_SYNC);
+		return true;
+	}
+	
 	// Determine if type of procedure declaration.
 	private boolean isProcedureDeclaration(boolean aGlobal) throws IOException
 	{
 		// Initialize return value to false.
 		boolean isValid = false;
+		int theStart = thePendingCount;
+		int theNodeMark = theSyntaxTree.getCount();
 		
-		if(theCurrentToken.TokenType == TokenType.PROCEDURE)
+		if(isCurrentToken(TokenType.PROCEDURE))
 		{
 			// If we are in the global scope, we must update the scope and push old scope to stack.
 			if(aGlobal)
@@ -347,12 +533,17 @@ public class Parse
 					else
 						theSymbolTable.RemoveFromScopeKey();
 					
+					// The procedure node takes its parameters, declarations and body.
+					attachChildren(theStart);
 					isValid = true;
-					System.out.println("Procedure Declaration!");
+					theListener.Event(ParseEvent.PROCEDURE_DECLARATION);
 				}
 			}
 		}
 		
+		if(!isValid)
+			rollbackNodes(theStart, theNodeMark);
+		
 		return isValid;
 	}
 	
@@ -363,21 +554,22 @@ public class Parse
 		boolean isValid = false;
 		Symbol aSymbol = new Symbol();
 		
-		if(theCurrentToken.TokenType == TokenType.IDENTITY)
+		if(isCurrentToken(TokenType.IDENTITY))
 		{
-			theSymbolTable.AddToScopeKey(theCurrentToken.TokenValue);
+			theSymbolTable.AddToScopeKey(nameOf(theCurrentToken));
 			theSymbolTable.CURR_SYMBOL.setLineNumber(theCurrentToken.TokenLineNumber);
+			pushNode(SyntaxTree.PROCEDURE, theCurrentToken, thePendingCount);
 			
 			updateToken();
-			if(theCurrentToken.TokenType == TokenType.LEFT_PARENTHESIS)
+			if(isCurrentToken(TokenType.LEFT_PARENTHESIS))
 			{
-				if(theNextToken.TokenType != TokenType.RIGHT_PARENTHESIS)
+				if(!isNextToken(TokenType.RIGHT_PARENTHESIS))
 				{
 					updateToken();
 					if(isParameterList())
 					{
 						updateToken();
-						if(theCurrentToken.TokenType == TokenType.RIGHT_PARENTHESIS)
+						if(isCurrentToken(TokenType.RIGHT_PARENTHESIS))
 						{	
 							theSymbolTable.CreateSymbolsForProcedureParameters();
 							aSymbol = theSymbolTable.CURR_SYMBOL;
@@ -409,20 +601,19 @@ public class Parse
 		
 		if(isParameter())
 		{
-			if(theNextToken.TokenType == TokenType.COMMA)
+			if(isNextToken(TokenType.COMMA))
 			{
-				updateToken();
-				updateToken();
+				skipTokens(2);
 				
 				if(isParameterList())
 				{
-					System.out.println("Parameter list!");
+					theListener.Event(ParseEvent.PARAMETER_LIST);
 					isValid = true;
 				}
 			}
 			else
 			{
-				System.out.println("Parameter list!");
+				theListener.Event(ParseEvent.PARAMETER_LIST);
 				isValid = true;
 			}
 		}
@@ -434,14 +625,18 @@ public class Parse
 	private boolean isParameter() throws IOException
 	{
 		boolean isValid = false;
+		int theStart = thePendingCount;
 		
 		if(isParameterDeclaration())
 		{
 			updateToken();
 			if(isParameterMark())
 			{
+				pushNode(SyntaxTree.PARAMETER, theCurrentToken, theStart);
 				isValid = true;
 			}
+			else
+				truncatePending(theStart);
 		}
 		
 		return isValid;
@@ -451,17 +646,20 @@ public class Parse
 	private boolean isParameterDeclaration() throws IOException
 	{
 		boolean isValid = false;
+		Token theTypeMark = theCurrentToken;
+		int theStart = thePendingCount;
 		
 		if(isTypeMark()) 
 		{
 			theSymbolTable.CURR_SYMBOL.addParameterTypes(theCurrentToken.TokenType);
 			updateToken();
 			
-			if(theCurrentToken.TokenType == TokenType.IDENTITY)
+			if(isCurrentToken(TokenType.IDENTITY))
 			{
-				theSymbolTable.CURR_SYMBOL.addParameters(theCurrentToken.TokenValue);
+				theSymbolTable.CURR_SYMBOL.addParameters(theCurrentToken.TokenValue.toString());
+				pushNode(SyntaxTree.NAME, theCurrentToken, thePendingCount);
 			
-				if(theNextToken.TokenType == TokenType.LEFT_BRACKET)
+				if(isNextToken(TokenType.LEFT_BRACKET))
 				{
 					updateToken();
 					if(isBoundStatement())
@@ -476,6 +674,11 @@ public class Parse
 			}
 		}
 		
+		if(isValid)
+			pushNode(SyntaxTree.VARIABLE, theTypeMark, theStart);
+		else
+			truncatePending(theStart);
+		
 		return isValid;
 	}
 	
@@ -484,6 +687,9 @@ public class Parse
 	{
 		boolean isValid = false;
 		
+		if(theCurrentToken == null)
+			return false;
+		
 		switch(theCurrentToken.TokenType)
 		{
 			case INOUT: case IN: case OUT:
@@ -508,44 +714,34 @@ public class Parse
 		while(isDeclaration())
 		{
 			updateToken();
-			if(theCurrentToken.TokenType == TokenType.SEMICOLON)
+			if(isCurrentToken(TokenType.SEMICOLON))
 			{
-				System.out.println("Declaration!");
+				theListener.Event(ParseEvent.DECLARATION);
 				updateToken();
 			}
 			else
 			{
-				theLogger.LogParseError(theCurrentToken);
-				while(theCurrentToken.TokenType != TokenType.SEMICOLON)
-				{
-					updateToken();
-				}
-				updateToken();
+				recoverTo(DECLARATION_SYNC);
 			}
 		}
 		
-		if(theCurrentToken.TokenType == TokenType.BEGIN)
+		if(isCurrentToken(TokenType.BEGIN))
 		{
-			System.out.println("Begin!");
+			theListener.Event(ParseEvent.BEGIN);
 			updateToken();
 			
-			while(isStatement())
+			// A body handed to the body parser is skipped up to its 'end', leaving an empty block for its statements.
+			int theBody = theBodyParser == null ? -1 : theBodyParser.FindBody(theTokenIndex);
+			if(theBody >= 0)
 			{
-				updateToken();
-				if(theCurrentToken.TokenType == TokenType.SEMICOLON)
-				{
-					System.out.println("Statement!");
-					updateToken();
-				}
-				else
-				{
-					theLogger.LogParseError(theCurrentToken);
-					while(theCurrentToken.TokenType != TokenType.SEMICOLON)
-					{
-						updateToken();
-					}
-					updateToken();
-				}
+				pushNode(SyntaxTree.BLOCK, null, thePendingCount);
+				theTokenIndex = theBodyParser.DeferBody(theBody, theSymbolTable.Snapshot(), thePendingNodes[thePendingCount - 1]);
+				theLookahead.Clear();
+				theCurrentToken = theLookahead.Peek(0);
+			}
+			else
+			{
+				parseStatements();
 			}
 			
 			if(theCurrentToken == null)
@@ -554,15 +750,15 @@ public class Parse
 				return isValid;
 			}
 			
-			if(theCurrentToken.TokenType == TokenType.END)
+			if(isCurrentToken(TokenType.END))
 			{
 				updateToken();
-				if(theCurrentToken.TokenType == TokenType.PROCEDURE)
+				if(isCurrentToken(TokenType.PROCEDURE))
 				{
 					// TODO: Revisit.
 					theTranslator.ReturnToIncompleteData();
 					
-					System.out.println("End procedure!");
+					theListener.Event(ParseEvent.END_PROCEDURE);
 					isValid = true;
 				}
 				else
@@ -575,98 +771,303 @@ public class Parse
 		return isValid;
 	}
 	
-	// Determine if type of statement.
+	// Determine if type of statement. The blocks of nested if and for statements are kept on an explicit stack, so
+	// nesting depth does not grow the Java stack.
 	private boolean isStatement() throws IOException
 	{
-		boolean isValid = false;
-		
-		if(theCurrentToken == null)
-			return isValid;
+		int theBase = theBlockCount;
 		
-		// Check if return_statement.
-		if(isReturnStatement())
-		{
-			isValid = true;
-		}
-		else if(isBuiltInProcedureCall())
-		{
-			isValid = true;
-		}
-		// Check if either procedure_call or assignment_statement.
-		else if(theCurrentToken.TokenType == TokenType.IDENTITY)
+		while(true)
 		{
-			theCurrentSymbol = theSymbolTable.ReturnSymbolValueForKey((theSymbolTable.SCOPE_KEY + "." + theCurrentToken.TokenValue).toString().trim());
-			
-			if(theCurrentSymbol == null)
-				theCurrentSymbol = theSymbolTable.ReturnSymbolValueForKey((theSymbolTable.GLOBAL_SCOPE_KEY + "." + theCurrentToken.TokenValue).toString().trim());
-			
-			updateToken();
+			boolean isValid = false;
+			int theStart = thePendingCount;
+			int theNodeMark = theSyntaxTree.getCount();
 			
-			// Check if assignment_statement.
-			if(isDestination())
+			if(theCurrentToken != null)
 			{
-				if(theCurrentToken.TokenType == TokenType.ASSIGN)
+				// Check if return_statement.
+				if(isReturnStatement())
 				{
+					pushNode(SyntaxTree.RETURN, theCurrentToken, theStart);
+					isValid = true;
+				}
+				else if(isBuiltInProcedureCall())
+				{
+					isValid = true;
+				}
+				// Check if either procedure_call or assignment_statement.
+				else if(isCurrentToken(TokenType.IDENTITY))
+				{
+					Token theName = theCurrentToken;
+					theCurrentSymbol = theSymbolTable.ReturnSymbolValueForName(nameOf(theCurrentToken));
+					
 					updateToken();
-					if(isExpression())
+					
+					// Check if assignment_statement.
+					if(isDestination(theName))
 					{
-						isValid = true;
+						if(isCurrentToken(TokenType.ASSIGN))
+						{
+							Token theAssign = theCurrentToken;
+							updateToken();
+							if(isExpression())
+							{
+								pushNode(SyntaxTree.ASSIGNMENT, theAssign, theStart);
+								isValid = true;
+							}
+						}
+					}
+					// Check if procedure_call. A call with arguments of an undeclared name is skipped like an error
+					// statement. Procedures without parameters are not put in the table, so their calls are not checked.
+					else if(isCurrentToken(TokenType.LEFT_PARENTHESIS) && theCurrentSymbol == null && !isNextToken(TokenType.RIGHT_PARENTHESIS))
+					{
+						isValid = isUndeclaredCall(theName, theStart, theNodeMark);
+					}
+					else if(isCurrentToken(TokenType.LEFT_PARENTHESIS))
+					{
+						updateToken();
+						if(isProcedureCall())
+						{
+							pushNode(SyntaxTree.CALL, theName, theStart);
+							isValid = true;
+						}
 					}
+					
+					theCurrentSymbol = null;
+				}
+				// Check if if_statement or for_statement. Their blocks are parsed next.
+				else if(isIfHeader())
+				{
+					pushBlock(IF_THEN_FIRST, theStart);
+					continue;
+				}
+				else if(isForHeader())
+				{
+					pushBlock(FOR_BODY, theStart);
+					continue;
 				}
+				
+				// A failed statement leaves nothing in the tree.
+				if(!isValid)
+					rollbackNodes(theStart, theNodeMark);
+				
+				isValid = isErrorStatement(theStart, theNodeMark) || isValid;
 			}
-			// Check if procedure_call.
-			else if(theCurrentToken.TokenType == TokenType.LEFT_PARENTHESIS)
+			
+			// Hand the result to the innermost open block. A finished block is in turn the result of its statement.
+			while(theBlockCount > theBase)
 			{
-				updateToken();
-				if(isProcedureCall())
+				int theBlockResult = continueBlock(isValid);
+				if(theBlockResult == BLOCK_OPEN)
+					break;
+				
+				boolean isIfBlock = theBlockPhases[theBlockCount - 1] != FOR_BODY;
+				int theBlockStart = theBlockStarts[theBlockCount - 1];
+				int theBlockNode = thePendingNodes[theBlockStart];
+				theBlockCount--;
+				theCurrentSymbol = null;
+				isValid = theBlockResult == BLOCK_VALID;
+				
+				// The if or for node takes its header and blocks.
+				if(isValid)
+					attachChildren(theBlockStart);
+				else
+					rollbackNodes(theBlockStart, theBlockNode);
+				
+				// A failed if statement may still be followed by a for statement.
+				if(!isValid && isIfBlock && isForHeader())
 				{
-					isValid = true;
+					pushBlock(FOR_BODY, theBlockStart);
+					break;
 				}
+				
+				isValid = isErrorStatement(theBlockStart, theBlockNode) || isValid;
 			}
 			
-			theCurrentSymbol = null;
+			if(theBlockCount == theBase)
+				return isValid;
 		}
-		// Check if if_statement.
-		else if(isIfStatement())
+	}
+	
+	// Error handling. A statement ending on an error token is skipped up to its semicolon, and stands in the tree as an
+	// error node in place of the nodes it made since aStart.
+	private boolean isErrorStatement(int aStart, int aNodeMark) throws IOException
+	{
+		if(!isCurrentToken(TokenType.ERROR))
+			return false;
+		
+		rollbackNodes(aStart, aNodeMark);
+		pushNode(SyntaxTree.ERROR, theCurrentToken, aStart);
+		
+		//theLogger.LogScanError(theCurrentToken);
+		skipBefore(STATEMENT_SYNC);
+		return true;
+	}
+	
+	// Logs a call of aName, which has no symbol in scope, and skips it up to its semicolon. It stands in the tree as an
+	// error node in place of the nodes it made since aStart.
+	private boolean isUndeclaredCall(Token aName, int aStart, int aNodeMark) throws IOException
+	{
+		theLogger.LogUndeclaredSymbol(aName);
+		rollbackNodes(aStart, aNodeMark);
+		pushNode(SyntaxTree.ERROR, aName, aStart);
+		
+		skipBefore(STATEMENT_SYNC);
+		return true;
+	}
+	
+	// Opens a block whose statements are parsed next. aStart is the pending index of its if or for node.
+	private void pushBlock(int aPhase, int aStart)
+	{
+		if(theBlockCount == theBlockPhases.length)
 		{
-			isValid = true;
+			theBlockPhases = Arrays.copyOf(theBlockPhases, theBlockCount * 2);
+			theBlockStarts = Arrays.copyOf(theBlockStarts, theBlockCount * 2);
+			theBlockParts = Arrays.copyOf(theBlockParts, theBlockCount * 2);
 		}
-		// Check if for_statement.
-		else if(isForStatement())
+		
+		theBlockPhases[theBlockCount] = aPhase;
+		theBlockStarts[theBlockCount] = aStart;
+		theBlockParts[theBlockCount] = thePendingCount;
+		theBlockCount++;
+	}
+	
+	// Gathers the statements of the innermost block's current part into a block node.
+	private void closeBlockPart()
+	{
+		pushNode(SyntaxTree.BLOCK, null, theBlockParts[theBlockCount - 1]);
+		theBlockParts[theBlockCount - 1] = thePendingCount;
+	}
+	
+	// Takes the result of a statement inside the innermost block. Returns BLOCK_OPEN when another statement of the
+	// block follows, otherwise whether the block ended validly.
+	private int continueBlock(boolean aStatementValid) throws IOException
+	{
+		int thePhase = theBlockPhases[theBlockCount - 1];
+		
+		// The first statement of a then or else part is required, with its semicolon.
+		if(thePhase == IF_THEN_FIRST || thePhase == IF_ELSE_FIRST)
 		{
-			isValid = true;
+			if(aStatementValid)
+			{
+				updateToken();
+				if(isCurrentToken(TokenType.SEMICOLON))
+				{
+					updateToken();
+					theBlockPhases[theBlockCount - 1] = thePhase == IF_THEN_FIRST ? IF_THEN : IF_ELSE;
+					return BLOCK_OPEN;
+				}
+			}
+			return BLOCK_INVALID;
 		}
 		
-		// Error handling.
-		if(theCurrentToken.TokenType == TokenType.ERROR)
+		if(aStatementValid)
 		{
-			//theLogger.LogScanError(theCurrentToken);
-			while(theNextToken.TokenType != TokenType.SEMICOLON)
+			if(thePhase == FOR_BODY)
+				theListener.Event(ParseEvent.LOOP_STATEMENT);
+			
+			updateToken();
+			if(isCurrentToken(TokenType.SEMICOLON))
 			{
 				updateToken();
 			}
-			isValid = true;
+			else
+			{
+				recoverTo(STATEMENT_SYNC);
+			}
+			return BLOCK_OPEN;
 		}
 		
-		return isValid;
+		if(thePhase == IF_THEN && isCurrentToken(TokenType.ELSE))
+		{
+			closeBlockPart();
+			updateToken();
+			theBlockPhases[theBlockCount - 1] = IF_ELSE_FIRST;
+			return BLOCK_OPEN;
+		}
+		
+		if(isCurrentToken(TokenType.END))
+		{
+			updateToken();
+			if(thePhase == FOR_BODY && isCurrentToken(TokenType.FOR))
+			{
+				theListener.Event(ParseEvent.FOR);
+				closeBlockPart();
+				return BLOCK_VALID;
+			}
+			else if(thePhase != FOR_BODY && isCurrentToken(TokenType.IF))
+			{
+				theListener.Event(ParseEvent.IF);
+				closeBlockPart();
+				return BLOCK_VALID;
+			}
+		}
+		
+		return BLOCK_INVALID;
+	}
+	
+	// Logs the current token and skips to the first token in aSync, past it if it is a semicolon. Stops at the end of
+	// the input, which the construct left open reports.
+	private void recoverTo(EnumSet<TokenType> aSync) throws IOException
+	{
+		if(isEndOfInput())
+			return;
+		
+		theLogger.LogParseError(theCurrentToken);
+		while(!isEndOfInput() && !(theCurrentToken != null && aSync.contains(theCurrentToken.TokenType)))
+		{
+			updateToken();
+		}
+		if(isCurrentToken(TokenType.SEMICOLON))
+			updateToken();
+	}
+	
+	// Skips up to the token before the first token in aSync, or before a null token.
+	private void skipBefore(EnumSet<TokenType> aSync) throws IOException
+	{
+		while(nextToken() != null && !aSync.contains(nextToken().TokenType))
+		{
+			updateToken();
+		}
+	}
+	
+	// Returns true if the current token is of type aType. False for a null token.
+	private boolean isCurrentToken(TokenType aType)
+	{
+		return theCurrentToken != null && theCurrentToken.TokenType == aType;
+	}
+	
+	// Returns true if the token after the current one is of type aType. False for a null token.
+	private boolean isNextToken(TokenType aType) throws IOException
+	{
+		Token theNext = nextToken();
+		return theNext != null && theNext.TokenType == aType;
+	}
+	
+	// Returns true once the tokens have run out. Illegal characters are null tokens too, but the source always ends
+	// with two null tokens.
+	private boolean isEndOfInput() throws IOException
+	{
+		return theCurrentToken == null && nextToken() == null;
 	}
 	
-	// Determine if type of destination.
-	private boolean isDestination() throws IOException
+	// Determine if type of destination. The destination's name node is made from aName.
+	private boolean isDestination(Token aName) throws IOException
 	{
 		boolean isValid = false;
+		int theStart = thePendingCount;
 		
-		if(theCurrentToken.TokenType != TokenType.LEFT_BRACKET && theCurrentToken.TokenType != TokenType.LEFT_PARENTHESIS)
+		if(!isCurrentToken(TokenType.LEFT_BRACKET) && !isCurrentToken(TokenType.LEFT_PARENTHESIS))
 		{
 			isValid = true;
 		}
-		else if(theCurrentToken.TokenType == TokenType.LEFT_BRACKET)
+		else if(isCurrentToken(TokenType.LEFT_BRACKET))
 		{
 			updateToken();
 			if(isExpression())
 			{
 				updateToken();
-				if(theCurrentToken.TokenType == TokenType.RIGHT_BRACKET)
+				if(isCurrentToken(TokenType.RIGHT_BRACKET))
 				{
 					updateToken();
 					isValid = true;
@@ -674,6 +1075,11 @@ public class Parse
 			}
 		}
 		
+		if(isValid)
+			pushNode(SyntaxTree.NAME, aName, theStart);
+		else
+			truncatePending(theStart);
+		
 		return isValid;
 	}
 	
@@ -682,7 +1088,7 @@ public class Parse
 	{
 		boolean isValid = false;
 		
-		if(theCurrentToken.TokenType == TokenType.RIGHT_PARENTHESIS)
+		if(isCurrentToken(TokenType.RIGHT_PARENTHESIS))
 		{
 			isValid = true;
 		}
@@ -690,9 +1096,9 @@ public class Parse
 		{
 			if(isArgumentList(0, theCurrentSymbol.getParameterTypes(), theCurrentSymbol.getParameterReturnTypes()))
 			{
-				if(theCurrentToken.TokenType != TokenType.RIGHT_PARENTHESIS)
+				if(!isCurrentToken(TokenType.RIGHT_PARENTHESIS))
 					updateToken();
-				if(theCurrentToken.TokenType == TokenType.RIGHT_PARENTHESIS)
+				if(isCurrentToken(TokenType.RIGHT_PARENTHESIS))
 				{
 					isValid = true;
 				}
@@ -705,24 +1111,26 @@ public class Parse
 	private boolean isBuiltInProcedureCall() throws IOException
 	{
 		boolean isValid = false;
+		Token theName = theCurrentToken;
+		int theStart = thePendingCount;
 		
 		if(isBuiltInProcedureTokenType())
 		{
 			try
 			{
-				theCurrentSymbol = theSymbolTable.ReturnSymbolValueForKey((theSymbolTable.GLOBAL_SCOPE_KEY + "." + theCurrentToken.TokenValue).toString().trim());
+				theCurrentSymbol = theSymbolTable.ReturnBuiltInSymbol(theCurrentToken.TokenType);
 				updateToken();
 				
-				if(theCurrentToken.TokenType == TokenType.LEFT_PARENTHESIS)
+				if(isCurrentToken(TokenType.LEFT_PARENTHESIS))
 				{
 					updateToken();
 						if(isArgumentList(0, theCurrentSymbol.getParameterTypes(), theCurrentSymbol.getParameterReturnTypes()))
 						{
-							if(theCurrentToken.TokenType == TokenType.RIGHT_PARENTHESIS)
+							if(isCurrentToken(TokenType.RIGHT_PARENTHESIS))
 							{
 								isValid = true;
 							}
-							else if(theNextToken.TokenType == TokenType.RIGHT_PARENTHESIS)
+							else if(isNextToken(TokenType.RIGHT_PARENTHESIS))
 							{
 								isValid = true;
 								updateToken();
@@ -735,6 +1143,11 @@ public class Parse
 				theLogger.LogParseError(theCurrentToken);
 			}
 			theCurrentSymbol = null;
+			
+			if(isValid)
+				pushNode(SyntaxTree.CALL, theName, theStart);
+			else
+				truncatePending(theStart);
 		}
 		
 		return isValid;
@@ -743,6 +1156,9 @@ public class Parse
 	// Determine if built-in function.
 	private boolean isBuiltInProcedureTokenType()
 	{
+		if(theCurrentToken == null)
+			return false;
+		
 		switch(theCurrentToken.TokenType)
 		{
 			case GETBOOL: case GETFLOAT: case GETINTEGER: case GETSTRING: case GETCHAR:
@@ -763,53 +1179,49 @@ public class Parse
 			// TYPE CHECKING!
 			Symbol aSymbol = null;
 			
-			if(theCurrentToken.TokenType == TokenType.RIGHT_BRACKET)
+			if(isCurrentToken(TokenType.RIGHT_BRACKET))
 			{
 				updateToken();
 				isValid = true;
 			}
-			else if(theCurrentToken.TokenType == TokenType.IDENTITY)
+			else if(isCurrentToken(TokenType.IDENTITY))
 			{
-				aSymbol = theSymbolTable.ReturnSymbolValueForKey((theSymbolTable.SCOPE_KEY + "." + theCurrentToken.TokenValue).toString().trim());
-				
-				// If variable is null, check the global scope.
-				if(aSymbol == null)
-					aSymbol = theSymbolTable.ReturnSymbolValueForKey((theSymbolTable.GLOBAL_SCOPE_KEY + "." + theCurrentToken.TokenValue).toString().trim());
+				// If the variable is not in the current scope, the global scope is checked.
+				aSymbol = theSymbolTable.ReturnSymbolValueForName(nameOf(theCurrentToken));
 				
 				if(aArgumentTypeList != null && aSymbol != null && aArgumentTypeList.get(idx) == aSymbol.getType())
 				{
-					System.out.println("Argument types match.");
+					theListener.Event(ParseEvent.ARGUMENT_TYPES_MATCH);
 					isValid = true;
 				}
 				else
 				{
-					theLogger.LogInvalidProcedureParameter(theCurrentToken.TokenValue);
+					theLogger.LogInvalidProcedureParameter(theCurrentToken.TokenValue.toString());
 				}
 			}
 			else if(aArgumentReturnTypeList.get(idx) == TokenType.IN)
 			{
 				if(aArgumentTypeList.get(idx) == theCurrentToken.TokenType)
 				{
-					System.out.println("Raw data types match.");
+					theListener.Event(ParseEvent.RAW_TYPES_MATCH);
 					isValid = true;
 				}
 				else
 				{
-					theLogger.LogInvalidProcedureParameter(theCurrentToken.TokenValue);
+					theLogger.LogInvalidProcedureParameter(theCurrentToken.TokenValue.toString());
 				}
 			}
 		}
 		
-		if(theNextToken.TokenType == TokenType.COMMA)
+		if(isNextToken(TokenType.COMMA))
 		{
-			updateToken();
-			updateToken();
+			skipTokens(2);
 			if(isArgumentList(idx + 1, aArgumentTypeList, aArgumentReturnTypeList))
 			{
 				isValid = true;
 			}
 		}
-		else if(theNextToken.TokenType != TokenType.COMMA)
+		else if(!isNextToken(TokenType.COMMA))
 		{
 			isValid = true;
 		}
@@ -822,183 +1234,88 @@ public class Parse
 	{
 		boolean isValid = false;
 		
-		if(theCurrentToken.TokenType == TokenType.RETURN)
+		if(isCurrentToken(TokenType.RETURN))
 		{
 			isValid = true;
-			System.out.println("Return!");
+			theListener.Event(ParseEvent.RETURN);
 		}	
 		
 		return isValid;
 	}
 	
-	// Determine if type of if statement.
-	private boolean isIfStatement() throws IOException
+	// Determine if start of if statement, up to and including 'then'.
+	private boolean isIfHeader() throws IOException
 	{
-		boolean isValid = false;
+		if(!isCurrentToken(TokenType.IF))
+			return false;
+		
+		int theStart = thePendingCount;
+		int theNodeMark = theSyntaxTree.getCount();
+		pushNode(SyntaxTree.IF, theCurrentToken, theStart);
+		theCurrentSymbol = new Symbol(TokenType.IF, theCurrentToken.TokenLineNumber, null, null, null, false);
 		
-		if(theCurrentToken.TokenType == TokenType.IF)
+		updateToken();
+		if(isCurrentToken(TokenType.LEFT_PARENTHESIS))
 		{
-			theCurrentSymbol = new Symbol(TokenType.IF, theCurrentToken.TokenLineNumber, null, null, null, null, null, false);
-			
 			updateToken();
-			if(theCurrentToken.TokenType == TokenType.LEFT_PARENTHESIS)
+			if(isExpression())
 			{
 				updateToken();
-				if(isExpression())
+				if(isCurrentToken(TokenType.RIGHT_PARENTHESIS))
 				{
 					updateToken();
-					if(theCurrentToken.TokenType == TokenType.RIGHT_PARENTHESIS)
+					if(isCurrentToken(TokenType.THEN))
 					{
 						updateToken();
-						if(theCurrentToken.TokenType == TokenType.THEN)
-						{
-							updateToken();
-							if(isStatement())
-							{
-								updateToken();
-								if(theCurrentToken.TokenType == TokenType.SEMICOLON)
-								{
-									updateToken();
-									while(isStatement())
-									{
-										updateToken();
-										if(theCurrentToken.TokenType == TokenType.SEMICOLON)
-										{
-											updateToken();
-										}
-										else
-										{
-											theLogger.LogParseError(theCurrentToken);
-											while(theCurrentToken.TokenType != TokenType.SEMICOLON)
-											{
-												updateToken();
-											}
-											updateToken();
-										}
-									}
-									
-									if(theCurrentToken.TokenType == TokenType.ELSE)
-									{
-										updateToken();
-										if(isStatement())
-										{
-											updateToken();
-											if(theCurrentToken.TokenType == TokenType.SEMICOLON)
-											{
-												updateToken();
-												while(isStatement())
-												{
-													updateToken();
-													if(theCurrentToken.TokenType == TokenType.SEMICOLON)
-													{
-														updateToken();
-													}
-													else
-													{
-														theLogger.LogParseError(theCurrentToken);
-														while(theCurrentToken.TokenType != TokenType.SEMICOLON)
-														{
-															updateToken();
-														}
-														updateToken();
-													}
-												}
-												
-												if(theCurrentToken.TokenType == TokenType.END)
-												{
-													updateToken();
-													if(theCurrentToken.TokenType == TokenType.IF)
-													{
-														isValid = true;
-														System.out.println("If!");
-													}
-												}
-											}
-										}
-									}
-									else if(theCurrentToken.TokenType == TokenType.END)
-									{
-										updateToken();
-										if(theCurrentToken.TokenType == TokenType.IF)
-										{
-											isValid = true;
-											System.out.println("If!");
-										}
-									}
-								}
-							}
-						}
+						return true;
 					}
 				}
 			}
-			
-			theCurrentSymbol = null;
 		}
 		
-		return isValid;
+		theCurrentSymbol = null;
+		rollbackNodes(theStart, theNodeMark);
+		return false;
 	}
 	
-	// Determine if type of for statement.
-	private boolean isForStatement() throws IOException
+	// Determine if start of for statement, up to and including the closing parenthesis.
+	private boolean isForHeader() throws IOException
 	{
-		boolean isValid = false;
+		if(!isCurrentToken(TokenType.FOR))
+			return false;
 		
-		if(theCurrentToken.TokenType == TokenType.FOR)
+		int theStart = thePendingCount;
+		int theNodeMark = theSyntaxTree.getCount();
+		pushNode(SyntaxTree.FOR, theCurrentToken, theStart);
+		theCurrentSymbol = new Symbol(TokenType.IF, theCurrentToken.TokenLineNumber, null, null, null, false);
+		updateToken();
+		if(isCurrentToken(TokenType.LEFT_PARENTHESIS))
 		{
-			theCurrentSymbol = new Symbol(TokenType.IF, theCurrentToken.TokenLineNumber, null, null, null, null, null, false);
 			updateToken();
-			if(theCurrentToken.TokenType == TokenType.LEFT_PARENTHESIS)
+			if(isCurrentToken(TokenType.IDENTITY))
 			{
+				Token theName = theCurrentToken;
 				updateToken();
-				if(theCurrentToken.TokenType == TokenType.IDENTITY)
+				if(isDestination(theName))
 				{
-					updateToken();
-					if(isDestination())
+					if(isCurrentToken(TokenType.ASSIGN))
 					{
-						if(theCurrentToken.TokenType == TokenType.ASSIGN)
+						Token theAssign = theCurrentToken;
+						updateToken();
+						if(isExpression())
 						{
+							pushNode(SyntaxTree.ASSIGNMENT, theAssign, theStart + 1);
 							updateToken();
-							if(isExpression())
+							if(isCurrentToken(TokenType.SEMICOLON))
 							{
 								updateToken();
-								if(theCurrentToken.TokenType == TokenType.SEMICOLON)
+								if(isExpression())
 								{
 									updateToken();
-									if(isExpression())
+									if(isCurrentToken(TokenType.RIGHT_PARENTHESIS))
 									{
 										updateToken();
-										if(theCurrentToken.TokenType == TokenType.RIGHT_PARENTHESIS)
-										{
-											updateToken();
-											while(isStatement())
-											{
-												System.out.println("LOOP STATEMENT");
-												updateToken();
-												if(theCurrentToken.TokenType == TokenType.SEMICOLON)
-												{
-													updateToken();
-												}
-												else
-												{
-													theLogger.LogParseError(theCurrentToken);
-													while(theCurrentToken.TokenType != TokenType.SEMICOLON)
-													{
-														updateToken();
-													}
-													updateToken();
-												}
-											}
-											
-											if(theCurrentToken.TokenType == TokenType.END)
-											{
-												updateToken();
-												if(theCurrentToken.TokenType == TokenType.FOR)
-												{
-													isValid = true;
-													System.out.println("For!");
-												}
-											}
-										}
+										return true;
 									}
 								}
 							}
@@ -1006,61 +1323,69 @@ public class Parse
 					}
 				}
 			}
-			
-			theCurrentSymbol = null;
 		}
 		
-		return isValid;
+		theCurrentSymbol = null;
+		rollbackNodes(theStart, theNodeMark);
+		return false;
 	}
 	
 	// Determine if valid bound statement.
 	private boolean isBoundStatement() throws IOException
 	{
 		boolean isValid = false;
-		StringBuilder lowerBound = new StringBuilder();
-		StringBuilder upperBound = new StringBuilder();
+		int theStart = thePendingCount;
+		Token theLowerMinus = null;
 		updateToken();
 		
-		if(theCurrentToken.TokenType == TokenType.MINUS)
+		if(isCurrentToken(TokenType.MINUS))
 		{
-			lowerBound.append('-');
+			theLowerMinus = theCurrentToken;
 			updateToken();
 		}
 		
-		if(isExpression() && theNextToken.TokenType == TokenType.RIGHT_BRACKET)
+		if(isExpression() && isNextToken(TokenType.RIGHT_BRACKET))
 		{
+			pushBound(theLowerMinus);
 			updateToken();
 			isValid = true;
 		}
-		else if(theCurrentToken.TokenType == TokenType.FLOAT || theCurrentToken.TokenType == TokenType.INTEGER)
+		else if(isCurrentToken(TokenType.FLOAT) || isCurrentToken(TokenType.INTEGER))
 		{
-			lowerBound.append(theCurrentToken.TokenValue);
-			theSymbolTable.CURR_SYMBOL.setBoundLower(lowerBound.toString().trim());
+			truncatePending(theStart);
+			theSymbolTable.CURR_SYMBOL.setBoundLower(theCurrentToken, theLowerMinus != null);
+			pushNode(SyntaxTree.LITERAL, theCurrentToken, thePendingCount);
+			pushBound(theLowerMinus);
 			
 			updateToken();
-			if(theCurrentToken.TokenType == TokenType.COLON)
+			if(isCurrentToken(TokenType.COLON))
 			{
+				Token theUpperMinus = null;
 				updateToken();
-				if(theCurrentToken.TokenType == TokenType.MINUS)
+				if(isCurrentToken(TokenType.MINUS))
 				{
-					upperBound.append('-');
+					theUpperMinus = theCurrentToken;
 					updateToken();
 				}
-				if(theCurrentToken.TokenType == TokenType.FLOAT || theCurrentToken.TokenType == TokenType.INTEGER)
+				if(isCurrentToken(TokenType.FLOAT) || isCurrentToken(TokenType.INTEGER))
 				{
-					upperBound.append(theCurrentToken.TokenValue);
-					theSymbolTable.CURR_SYMBOL.setBoundUpper(upperBound.toString().trim());
+					theSymbolTable.CURR_SYMBOL.setBoundUpper(theCurrentToken, theUpperMinus != null);
+					pushNode(SyntaxTree.LITERAL, theCurrentToken, thePendingCount);
+					pushBound(theUpperMinus);
 					
 					updateToken();
-					if(theCurrentToken.TokenType == TokenType.RIGHT_BRACKET)
+					if(isCurrentToken(TokenType.RIGHT_BRACKET))
 					{
 						isValid = true;
-						System.out.println("Bound!");
+						theListener.Event(ParseEvent.BOUND);
 					}
 				}
 			}
 		}
 		
+		if(!isValid)
+			truncatePending(theStart);
+		
 		return isValid;
 	}
 	
@@ -1070,6 +1395,9 @@ public class Parse
 		// Initialize return value to false.
 		boolean isValid = false;
 		
+		if(theCurrentToken == null)
+			return false;
+		
 		// Check if current token is of "type mark" type.
 		switch(theCurrentToken.TokenType)
 		{
@@ -1084,339 +1412,311 @@ public class Parse
 		return isValid;
 	}
 	
-	// Determine if type of expression.
+	// Determine if type of expression. Operands are read left to right and operators wait on an explicit stack until
+	// an operator of no higher precedence follows, so long operator chains and nested parentheses do not grow the
+	// Java stack and group to the left. A 'not' covers the rest of its group, which then cannot go on with '&' or '|'.
+	// Operand nodes wait on the pending stack, and a valid expression leaves its one node there.
 	private boolean isExpression() throws IOException
 	{
-		boolean isValid = false;
+		int theBase = theOperatorCount;
+		int theOperandBase = thePendingCount;
+		boolean isExpressionStart = true;
 		
-		if(isArithOp())
+		while(true)
 		{
-			if(theNextToken.TokenType == TokenType.AND)
+			// Read prefixes and open parentheses up to the next operand.
+			if(isExpressionStart && isCurrentToken(TokenType.NOT))
 			{
+				pushOperator(theCurrentToken, LOGICAL_PRECEDENCE);
 				updateToken();
-				updateToken();
-				
-				if(isExpression())
-				{
-					isValid = true;
-				}
 			}
-			else if(theNextToken.TokenType == TokenType.OR)
+			isExpressionStart = false;
+			
+			if(isCurrentToken(TokenType.LEFT_PARENTHESIS))
 			{
+				pushOperator(theCurrentToken, PARENTHESIS_MARK);
 				updateToken();
-				updateToken();
-				
-				if(isExpression())
-				{
-					isValid = true;
-				}
+				isExpressionStart = true;
+				continue;
 			}
-			else
+			
+			if(isCurrentToken(TokenType.MINUS))
 			{
-				isValid = true;
+				// A negated name is an operand. Anything else after the minus is read as a factor.
+				pushOperator(theCurrentToken, NEGATION_PRECEDENCE);
+				updateToken();
+				if(!isName())
+					continue;
 			}
-		}
-		else if(theCurrentToken.TokenType == TokenType.NOT)
-		{
-			updateToken();
-			if(isArithOp())
+			else if(!isFactor())
 			{
-				isValid = true;
+				if(isNegationRecovered(theBase, theOperandBase))
+					continue;
+				
+				theOperatorCount = theBase;
+				truncatePending(theOperandBase);
+				return false;
 			}
-		}
-		
-		return isValid;
-	}
-	
-	// Determine if type of arithop.
-	private boolean isArithOp() throws IOException
-	{
-		boolean isValid = false;
-		
-		if(isRelation())
-		{
-			if(theNextToken.TokenType == TokenType.PLUS)
+			
+			// Close parentheses until a binary operator follows the operand, or the expression ends.
+			while(true)
 			{
-				updateToken();
-				updateToken();
+				int thePrecedence = precedenceOf(nextToken());
+				if(thePrecedence == LOGICAL_PRECEDENCE && isNegatedGroup(theBase))
+					thePrecedence = PARENTHESIS_MARK;
 				
-				if(isArithOp())
+				if(thePrecedence != PARENTHESIS_MARK)
 				{
-					isValid = true;
+					reduceOperators(theBase, thePrecedence);
+					pushOperator(nextToken(), thePrecedence);
+					skipTokens(2);
+					
+					// Only '&' and '|' take a whole expression, which may start with 'not', on their right.
+					isExpressionStart = thePrecedence == LOGICAL_PRECEDENCE;
+					break;
 				}
-			}
-			else if(theNextToken.TokenType == TokenType.MINUS)
-			{
-				updateToken();
-				updateToken();
 				
-				if(isArithOp())
+				reduceOperators(theBase, LOGICAL_PRECEDENCE);
+				if(theOperatorCount == theBase)
+					return true;
+				
+				// The group was parenthesized.
+				theOperatorCount--;
+				updateToken();
+				if(!isCurrentToken(TokenType.RIGHT_PARENTHESIS))
 				{
-					isValid = true;
+					if(isNegationRecovered(theBase, theOperandBase))
+						break;
+					
+					theOperatorCount = theBase;
+					truncatePending(theOperandBase);
+					return false;
 				}
 			}
-			else
-			{
-				isValid = true;
-			}
 		}
+	}
+	
+	// Returns the binding precedence of a binary operator token, or PARENTHESIS_MARK when aToken is not one or is null.
+	private static int precedenceOf(Token aToken)
+	{
+		if(aToken == null)
+			return PARENTHESIS_MARK;
 		
-		return isValid;
+		switch(aToken.TokenType)
+		{
+			case AND: case OR:
+				return LOGICAL_PRECEDENCE;
+			case PLUS: case MINUS:
+				return ADDING_PRECEDENCE;
+			case LESS_THAN: case LESS_THAN_EQ: case GREATER_THAN: case GREATER_THAN_EQ: case EQUIVALENT: case NOT_EQUIVALENT:
+				return RELATION_PRECEDENCE;
+			case MULTIPLY: case DIVIDE:
+				return MULTIPLYING_PRECEDENCE;
+			default:
+				return PARENTHESIS_MARK;
+		}
 	}
 	
-	// Determine if type of relation.
-	private boolean isRelation() throws IOException
+	// Pushes an operator waiting for its right operand.
+	private void pushOperator(Token aOperator, int aPrecedence)
 	{
-		boolean isValid = false;
+		if(theOperatorCount == theOperatorTokens.length)
+		{
+			theOperatorTokens = Arrays.copyOf(theOperatorTokens, theOperatorCount * 2);
+			theOperatorPrecedences = Arrays.copyOf(theOperatorPrecedences, theOperatorCount * 2);
+			theOperatorMarks = Arrays.copyOf(theOperatorMarks, theOperatorCount * 2);
+		}
 		
-		if(isTerm())
+		theOperatorTokens[theOperatorCount] = aOperator;
+		theOperatorPrecedences[theOperatorCount] = aPrecedence;
+		theOperatorMarks[theOperatorCount] = thePendingCount;
+		theOperatorCount++;
+	}
+	
+	// Applies the waiting operators of the innermost group that bind at least as tightly as aPrecedence, joining their
+	// operand nodes. Stops at an open parenthesis or the start of the expression.
+	private void reduceOperators(int aBase, int aPrecedence)
+	{
+		while(theOperatorCount > aBase && theOperatorPrecedences[theOperatorCount - 1] >= aPrecedence)
 		{
-			if(theNextToken.TokenType == TokenType.LESS_THAN)
-			{
-				updateToken();
-				updateToken();
-				if(isRelation())
-				{
-					isValid = true;
-				}
-			}
-			else if(theNextToken.TokenType == TokenType.LESS_THAN_EQ)
-			{
-				updateToken();
-				updateToken();
-				if(isRelation())
-				{
-					isValid = true;
-				}
-			}
-			else if(theNextToken.TokenType == TokenType.GREATER_THAN)
-			{
-				updateToken();
-				updateToken();
-				if(isRelation())
-				{
-					isValid = true;
-				}
-			}
-			else if(theNextToken.TokenType == TokenType.GREATER_THAN_EQ)
-			{
-				updateToken();
-				updateToken();
-				if(isRelation())
-				{
-					isValid = true;
-				}
-			}
-			else if(theNextToken.TokenType == TokenType.EQUIVALENT)
-			{
-				updateToken();
-				updateToken();
-				if(isRelation())
-				{
-					isValid = true;
-				}
-			}
-			else if(theNextToken.TokenType == TokenType.NOT_EQUIVALENT)
-			{
-				updateToken();
-				updateToken();
-				if(isRelation())
-				{
-					isValid = true;
-				}
-			}
+			theOperatorCount--;
+			Token theOperator = theOperatorTokens[theOperatorCount];
+			if(theOperatorPrecedences[theOperatorCount] == NEGATION_PRECEDENCE || theOperator.TokenType == TokenType.NOT)
+				pushNode(SyntaxTree.UNARY, theOperator, thePendingCount - 1);
 			else
-			{
-				isValid = true;
-			}
+				pushNode(SyntaxTree.BINARY, theOperator, thePendingCount - 2);
 		}
-		
-		return isValid;
 	}
 	
-	// Determine if type of term.
-	private boolean isTerm() throws IOException
+	// Called when an operand fails. A group whose own operands failed on a 'not' is read as 'not' and an operand chain
+	// instead, dropping what it held. Otherwise the failure passes to the enclosing group, which retries the same way
+	// when the failed group was parenthesized. Returns true if a group took the 'not'.
+	private boolean isNegationRecovered(int aBase, int aOperandBase) throws IOException
 	{
-		boolean isValid = false;
+		boolean isRetryable = true;
+		int theTop = theOperatorCount;
 		
-		if(isFactor())
+		while(true)
 		{
-			if(theNextToken.TokenType == TokenType.MULTIPLY)
+			// Find where the group starts and whether it is already negated.
+			int theBoundary = theTop - 1;
+			boolean isNegated = false;
+			while(theBoundary >= aBase && theOperatorTokens[theBoundary].TokenType != TokenType.LEFT_PARENTHESIS
+					&& theOperatorTokens[theBoundary].TokenType != TokenType.AND && theOperatorTokens[theBoundary].TokenType != TokenType.OR)
 			{
-				updateToken();
-				updateToken();
-				
-				if(isTerm())
-				{
-					isValid = true;
-				}
+				if(theOperatorTokens[theBoundary].TokenType == TokenType.NOT)
+					isNegated = true;
+				theBoundary--;
 			}
-			else if(theNextToken.TokenType == TokenType.DIVIDE)
+			
+			if(isRetryable && !isNegated && isCurrentToken(TokenType.NOT))
 			{
+				theOperatorCount = theBoundary + 1;
+				truncatePending(theBoundary >= aBase ? theOperatorMarks[theBoundary] : aOperandBase);
+				pushOperator(theCurrentToken, LOGICAL_PRECEDENCE);
 				updateToken();
-				updateToken();
-				
-				if(isTerm())
-				{
-					isValid = true;
-				}
-			}
-			else
-			{
-				isValid = true;
+				return true;
 			}
+			
+			if(theBoundary < aBase)
+				return false;
+			
+			isRetryable = theOperatorTokens[theBoundary].TokenType == TokenType.LEFT_PARENTHESIS;
+			theTop = theBoundary;
 		}
-		
-		return isValid;
 	}
 	
-	// Determine if type of factor.
+	// Determine if the innermost group of the expression started with 'not'.
+	private boolean isNegatedGroup(int aBase)
+	{
+		for(int i = theOperatorCount - 1; i >= aBase && theOperatorPrecedences[i] != PARENTHESIS_MARK; i--)
+		{
+			if(theOperatorTokens[i].TokenType == TokenType.NOT)
+				return true;
+		}
+		return false;
+	}
+	
+	// Determine if type of factor, leaving its node pending. Negation and parentheses are handled by isExpression.
 	private boolean isFactor() throws IOException
 	{
 		boolean isValid = false;
 		
+		if(theCurrentToken == null)
+			return false;
+		
 		switch(theCurrentToken.TokenType)
 		{
-			case INTEGER: case TRUE: case FALSE: //case FLOAT:
+			case INTEGER: case TRUE: case FALSE: case FLOAT: case CHAR: case STRING:
 				if(theCurrentSymbol != null)
 				{
-					if(theCurrentSymbol.getType() == TokenType.IF || theCurrentSymbol.getType() == TokenType.FOR)
+					switch(TypeSystem.LiteralFit(theCurrentSymbol.getType(), theCurrentToken.TokenType))
 					{
-						if(theCurrentToken.TokenType == TokenType.INTEGER || theCurrentToken.TokenType == TokenType.TRUE || theCurrentToken.TokenType == TokenType.FALSE)
-						{
-							isValid = true;
-						}
-					}
-					else if(theCurrentSymbol.getType() == TokenType.INTEGER || theCurrentSymbol.getType() == TokenType.BOOL  //|| theCurrentSymbol.getType() == TokenType.FLOAT
-					|| theCurrentSymbol.getType() == TokenType.GETINTEGER || theCurrentSymbol.getType() == TokenType.GETBOOL //|| theCurrentSymbol.getType() == TokenType.GETFLOAT
-					|| theCurrentSymbol.getType() == TokenType.PUTINTEGER || theCurrentSymbol.getType() == TokenType.PUTBOOL //|| theCurrentSymbol.getType() == TokenType.PUTFLOAT
-					|| theCurrentSymbol.getType() == TokenType.PROCEDURE)
-					{
-						isValid = true;
-					}
-					else if(theCurrentSymbol.getType() == TokenType.FLOAT && theCurrentToken.TokenType == TokenType.INTEGER)
-						isValid = true;
-				}
-				else
-					isValid = true;
-				break;
-			case FLOAT:
-				if(theCurrentSymbol != null)
-				{
-					if( theCurrentSymbol.getType() == TokenType.FLOAT || theCurrentSymbol.getType() == TokenType.GETFLOAT || theCurrentSymbol.getType() == TokenType.PUTFLOAT
-					|| theCurrentSymbol.getType() == TokenType.PROCEDURE)
-					{
-						isValid = true;
-					}
-				}
-				else
-					isValid = true;
-				break;
-			case CHAR:
-				if(theCurrentSymbol != null)
-				{
-					if(theCurrentSymbol.getType() == TokenType.IF || theCurrentSymbol.getType() == TokenType.FOR)
-					{
-						if(theCurrentSymbol.getParameterTypes() == null)
-						{
-							theCurrentSymbol.setParameterTypes(Arrays.asList(theCurrentToken.TokenType));
+						case TypeSystem.COMPATIBLE: case TypeSystem.COERCED:
 							isValid = true;
-						}
-						else if(theCurrentSymbol.getParameterTypes().get(0) == theCurrentToken.TokenType)
-						{
-							isValid = true;
-						}
-					}
-					if(theCurrentSymbol.getType() == TokenType.CHAR || theCurrentSymbol.getType() == TokenType.GETCHAR || 
-					theCurrentSymbol.getType() == TokenType.PUTCHAR || theCurrentSymbol.getType() == TokenType.PROCEDURE)
-					{
-						isValid = true;
-					}
-				}
-				else
-					isValid = true;
-				break;
-			case STRING:
-				if(theCurrentSymbol != null)
-				{
-					if(theCurrentSymbol.getType() == TokenType.IF || theCurrentSymbol.getType() == TokenType.FOR)
-					{
-						if(theCurrentSymbol.getParameterTypes() == null)
-						{
-							theCurrentSymbol.setParameterTypes(Arrays.asList(theCurrentToken.TokenType));
-							isValid = true;
-						}
-						else if(theCurrentSymbol.getParameterTypes().get(0) == theCurrentToken.TokenType)
-						{
-							isValid = true;
-						}
-					}
-					
-					if(theCurrentSymbol.getType() == TokenType.STRING || theCurrentSymbol.getType() == TokenType.GETSTRING || 
-					theCurrentSymbol.getType() == TokenType.PUTSTRING || theCurrentSymbol.getType() == TokenType.PROCEDURE)
-					{
-						isValid = true;
+							break;
+						case TypeSystem.FIRST_LITERAL:
+							// The first literal of a condition sets the type of the rest.
+							if(theCurrentSymbol.getParameterTypes() == null)
+							{
+								theCurrentSymbol.setParameterTypes(Arrays.asList(theCurrentToken.TokenType));
+								isValid = true;
+							}
+							else if(theCurrentSymbol.getParameterTypes().get(0) == theCurrentToken.TokenType)
+							{
+								isValid = true;
+							}
+							break;
+						default:
+							break;
 					}
 				}
 				else
 					isValid = true;
 				break;
-			case MINUS:
-				updateToken();
-				if(isName())
-				{
-					isValid = true;
-				}
-				else if(isFactor())
-				{
-					isValid = true;
-				}
-				break;
-			case LEFT_PARENTHESIS:
-				updateToken();
-				if(isExpression())
-				{
-					updateToken();
-					if(theCurrentToken.TokenType == TokenType.RIGHT_PARENTHESIS)
-					{
-						isValid = true;
-					}
-				}
-				break;
 			case IDENTITY:
-				isValid = isName();
-				break;
+				return isName();
 			default:
 				isValid = false;
 				break;
 		}
 		
+		if(isValid)
+			pushNode(SyntaxTree.LITERAL, theCurrentToken, thePendingCount);
+		
 		return isValid;
 	}
 	
-	// Determine if type of name.
+	// Determine if type of name, leaving its node pending.
 	private boolean isName() throws IOException
 	{
 		boolean isValid = false;
+		Token theName = theCurrentToken;
+		int theStart = thePendingCount;
 		
-		if(theNextToken.TokenType == TokenType.LEFT_BRACKET)
+		if(isNextToken(TokenType.LEFT_BRACKET))
 		{
-			updateToken();
-			updateToken();
+			skipTokens(2);
 			if(isExpression())
 			{
 				updateToken();
-				if(theCurrentToken.TokenType == TokenType.RIGHT_BRACKET)
+				if(isCurrentToken(TokenType.RIGHT_BRACKET))
 				{
 					isValid = true;
 				}
 			}
 		}
-		else if(theCurrentToken.TokenType == TokenType.IDENTITY)
+		else if(isCurrentToken(TokenType.IDENTITY))
 		{
 			isValid = true;
 		}
 		
+		if(isValid)
+			pushNode(SyntaxTree.NAME, theName, theStart);
+		else
+			truncatePending(theStart);
+		
 		return isValid;
 	}
+	
+	// Makes a node from aToken whose children are the pending nodes from aStart on, and leaves it pending in their place.
+	private void pushNode(int aKind, Token aToken, int aStart)
+	{
+		int theNode = theSyntaxTree.AddNode(aKind, aToken);
+		theSyntaxTree.SetChildren(theNode, thePendingNodes, aStart, thePendingCount);
+		thePendingCount = aStart;
+		
+		if(thePendingCount == thePendingNodes.length)
+			thePendingNodes = Arrays.copyOf(thePendingNodes, thePendingCount * 2);
+		thePendingNodes[thePendingCount++] = theNode;
+	}
+	
+	// Makes the pending node at aStart the parent of the pending nodes after it.
+	private void attachChildren(int aStart)
+	{
+		theSyntaxTree.SetChildren(thePendingNodes[aStart], thePendingNodes, aStart + 1, thePendingCount);
+		thePendingCount = aStart + 1;
+	}
+	
+	// Wraps the pending bound in a negation when aMinus is not null.
+	private void pushBound(Token aMinus)
+	{
+		if(aMinus != null)
+			pushNode(SyntaxTree.UNARY, aMinus, thePendingCount - 1);
+	}
+	
+	// Drops the pending nodes from aStart on. They stay in the tree, unlinked.
+	private void truncatePending(int aStart)
+	{
+		thePendingCount = aStart;
+	}
+	
+	// Drops the pending nodes from aStart on, and the tree nodes from aNodeMark on.
+	private void rollbackNodes(int aStart, int aNodeMark)
+	{
+		thePendingCount = aStart;
+		theSyntaxTree.Truncate(aNodeMark);
+		if(theBodyParser != null)
+			theBodyParser.DropBodies(aNodeMark);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package classes;
+
+import objects.ParseEvent;
+
+// Receives the constructs Parse recognizes, in order.
+public interface ParseListener
+{
+	// Listener that ignores every event. It is the parser's default, so an untraced parse pays nothing for tracing.
+	ParseListener NONE = new ParseListener()
+	{
+		public void Event(ParseEvent aEvent)
+		{
+		}
+	};
+	
+	// Called when the parser recognizes a construct.
+	void Event(ParseEvent aEvent);
+}
@@ -0,0 +1,89 @@
+package classes;
+
+import java.io.IOException;
+
+import objects.Token;
+import objects.TokenRingBuffer;
+
+// Runs a Scan on its own thread, feeding tokens to the parser through a single-producer/single-consumer ring.
+public class PipelinedScan implements TokenSource
+{
+	// Default ring capacity and number of tokens published at once.
+	public static final int DEFAULT_CAPACITY = 4096;
+	public static final int DEFAULT_BATCH_SIZE = 64;
+	
+	// Private properties.
+	private TokenRingBuffer theRing;
+	private Thread theScanThread;
+	private volatile IOException theScanException;
+	private boolean isFinished;
+	
+	// Constructor.
+	public PipelinedScan(Scan aScanner)
+	{
+		this(aScanner, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+	}
+	
+	// Constructor. Starts scanning immediately.
+	public PipelinedScan(final Scan aScanner, int aCapacity, int aBatchSize)
+	{
+		theRing = new TokenRingBuffer(aCapacity, aBatchSize);
+		theScanException = null;
+		isFinished = false;
+		
+		theScanThread = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				Produce(aScanner);
+			}
+		}, "Scan");
+		theScanThread.setDaemon(true);
+		theScanThread.start();
+	}
+	
+	// Returns the next token from the scanner thread. Returns null for an illegal character and at the end.
+	public Token GetToken() throws IOException
+	{
+		if(isFinished)
+			return null;
+		
+		if(theRing.Available())
+			return theRing.Take();
+		
+		isFinished = true;
+		if(theScanException != null)
+			throw theScanException;
+		
+		return null;
+	}
+	
+	// Stops the scanner thread once the parser is done with the tokens, whether or not it read them all.
+	public void Close()
+	{
+		isFinished = true;
+		theRing.Cancel();
+	}
+	
+	// Scanner thread body. Publishes every token until the parser closes this, then closes the ring.
+	private void Produce(Scan aScanner)
+	{
+		try
+		{
+			Token theToken;
+			while((theToken = aScanner.GetToken()) != null || !aScanner.END_REACHED)
+			{
+				if(!theRing.Put(theToken))
+					break;
+			}
+		}
+		catch(IOException e)
+		{
+			theScanException = e;
+		}
+		finally
+		{
+			theRing.Close();
+		}
+	}
+}
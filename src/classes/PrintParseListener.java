@@ -0,0 +1,23 @@
+package classes;
+
+import java.io.PrintStream;
+
+import objects.ParseEvent;
+
+// Prints the line of each event as it happens.
+public class PrintParseListener implements ParseListener
+{
+	// Private properties.
+	private PrintStream theOutput;
+	
+	// Constructor.
+	public PrintParseListener(PrintStream aOutput)
+	{
+		theOutput = aOutput;
+	}
+	
+	public void Event(ParseEvent aEvent)
+	{
+		theOutput.println(aEvent.getMessage());
+	}
+}
@@ -0,0 +1,185 @@
+package classes;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import objects.SignaturePool;
+import objects.Symbol;
+import objects.SymbolTable;
+import objects.SyntaxTree;
+import objects.TokenBuffer;
+
+// Keeps what ParallelParse made of each procedure body that parsed without errors, so a program parsed again after an
+// edit only parses the bodies that changed. A body is found by a 64 bit hash of its scope and source text, from its
+// first statement to its 'end', and reused when that text and scope are the same and each symbol the body looked up
+// still has the same signature. Bodies with errors are not kept, since their messages hold line numbers. Each parse
+// drops the bodies the parse before it did not use, so the cache holds about one program.
+public class ProcedureCache
+{
+	// Private properties.
+	private Map<Long, Entry> theEntries;
+	private SignaturePool theSignatures;
+	private int theGeneration;
+	private int theHitCount;
+	private int theMissCount;
+	
+	// Constructor.
+	public ProcedureCache()
+	{
+		theEntries = new HashMap<Long, Entry>();
+		theSignatures = new SignaturePool();
+		theGeneration = 0;
+		theHitCount = 0;
+		theMissCount = 0;
+	}
+	
+	// Returns the number of bodies reused.
+	public int getHitCount()
+	{
+		return theHitCount;
+	}
+	
+	// Returns the number of bodies looked up and parsed again.
+	public int getMissCount()
+	{
+		return theMissCount;
+	}
+	
+	// Returns the number of bodies kept.
+	public int getCount()
+	{
+		return theEntries.size();
+	}
+	
+	// Returns the pool the signatures of the lookups of the bodies kept are held in.
+	SignaturePool getSignatures()
+	{
+		return theSignatures;
+	}
+	
+	// Starts a parse. Drops the bodies that were neither used nor kept since the last one started, and the signatures
+	// only they held.
+	void BeginParse()
+	{
+		Iterator<Entry> theIterator = theEntries.values().iterator();
+		while(theIterator.hasNext())
+		{
+			if(theIterator.next().Generation != theGeneration)
+				theIterator.remove();
+		}
+		theGeneration++;
+		
+		theSignatures.Clear();
+		for(Entry theEntry : theEntries.values())
+		{
+			for(byte[] theSignature : theEntry.LookupSignatures)
+			{
+				if(theSignature != null)
+					theSignatures.Keep(theSignature);
+			}
+		}
+	}
+	
+	// Returns the body of tokens aStart to aEnd of aTokens, parsed before against a table like aSymbols with the same
+	// tracing, or null.
+	Entry Find(TokenBuffer aTokens, int aStart, int aEnd, SymbolTable aSymbols, boolean aTraced)
+	{
+		String theScope = aSymbols.getScopeKey();
+		byte[] theText = Text(aTokens, aStart, aEnd);
+		Entry theEntry = theText == null ? null : theEntries.get(Hash(theScope, theText));
+		if(theEntry == null || theEntry.Traced != aTraced || !theEntry.Scope.equals(theScope) || !Arrays.equals(theEntry.Text, theText))
+		{
+			theMissCount++;
+			return null;
+		}
+		
+		// Signatures are held in the pool, so equal ones are the same array.
+		for(int i = 0; i < theEntry.LookupKeys.length; i++)
+		{
+			Symbol theSymbol = aSymbols.ReturnSymbolValueForKey(theEntry.LookupKeys[i]);
+			if(theSignatures.Intern(theSymbol) != theEntry.LookupSignatures[i])
+			{
+				theMissCount++;
+				return null;
+			}
+		}
+		
+		theEntry.Generation = theGeneration;
+		theHitCount++;
+		return theEntry;
+	}
+	
+	// Keeps the body of tokens aStart to aEnd of aTokens, parsed without errors against aSymbols, which recorded its
+	// lookups, into aOutput and aTree.
+	void Put(TokenBuffer aTokens, int aStart, int aEnd, SymbolTable aSymbols, boolean aTraced, byte[] aOutput, SyntaxTree aTree)
+	{
+		byte[] theText = Text(aTokens, aStart, aEnd);
+		Map<String, byte[]> theLookups = aSymbols.getLookups();
+		if(theText == null || theLookups == null)
+			return;
+		
+		Entry theEntry = new Entry();
+		theEntry.Scope = aSymbols.getScopeKey();
+		theEntry.Text = theText;
+		theEntry.Traced = aTraced;
+		theEntry.LookupKeys = theLookups.keySet().toArray(new String[theLookups.size()]);
+		theEntry.LookupSignatures = theLookups.values().toArray(new byte[theLookups.size()][]);
+		theEntry.Output = aOutput;
+		theEntry.Tree = aTree;
+		theEntry.TokenCount = aEnd - aStart;
+		theEntry.Start = aTokens.getStart(aStart);
+		theEntry.Line = aTokens.getLine(aStart);
+		theEntry.Generation = theGeneration;
+		theEntries.put(Hash(theEntry.Scope, theText), theEntry);
+	}
+	
+	// Returns the source text from token aStart up to token aEnd, or null if the tokens carry no source.
+	private static byte[] Text(TokenBuffer aTokens, int aStart, int aEnd)
+	{
+		ByteBuffer theSource = aTokens.getSource();
+		if(theSource == null)
+			return null;
+		
+		int theStart = aTokens.getStart(aStart);
+		byte[] theText = new byte[aTokens.getStart(aEnd) - theStart];
+		for(int i = 0; i < theText.length; i++)
+			theText[i] = theSource.get(theStart + i);
+		return theText;
+	}
+	
+	// FNV-1a hash of a scope and a text.
+	private static long Hash(String aScope, byte[] aText)
+	{
+		long theHash = 0xcbf29ce484222325L;
+		for(int i = 0; i < aScope.length(); i++)
+			theHash = (theHash ^ aScope.charAt(i)) * 0x100000001b3L;
+		theHash = (theHash ^ 0xff) * 0x100000001b3L;
+		for(byte theByte : aText)
+			theHash = (theHash ^ (theByte & 0xff)) * 0x100000001b3L;
+		return theHash;
+	}
+	
+	// A body as parsed, with what it was parsed from.
+	static class Entry
+	{
+		String Scope;
+		byte[] Text;
+		boolean Traced;
+		String[] LookupKeys;
+		byte[][] LookupSignatures;
+		
+		byte[] Output;
+		SyntaxTree Tree;
+		
+		// Number of tokens before the 'end', and the offset and line of the first, where the body was parsed.
+		int TokenCount;
+		int Start;
+		int Line;
+		
+		// Number of the last parse that used the body.
+		int Generation;
+	}
+}
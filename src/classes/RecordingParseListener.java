@@ -0,0 +1,169 @@
+package classes;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import objects.ParseEvent;
+
+// Records events into batches and prints them on a writer thread, so the parser never waits on the console. Text
+// written to getOutput, such as errors, is recorded with the events and printed in order with them. Events are
+// recorded from one thread.
+public class RecordingParseListener implements ParseListener
+{
+	// Default number of events and texts recorded before a batch is handed to the writer.
+	public static final int DEFAULT_BATCH_SIZE = 4096;
+	
+	// Batch entry for the next recorded text.
+	private static final int TEXT = -1;
+	
+	private static final ParseEvent[] EVENTS = ParseEvent.values();
+	
+	// Private properties.
+	private PrintStream theTarget;
+	private ExecutorService theWriter;
+	private Future<?> theLastWrite;
+	private PrintStream theOutput;
+	
+	// Event ordinals of the current batch, or TEXT for each of its texts.
+	private int[] theBatch;
+	private int theCount;
+	private List<byte[]> theTexts;
+	
+	// Constructor.
+	public RecordingParseListener(PrintStream aTarget)
+	{
+		this(aTarget, DEFAULT_BATCH_SIZE);
+	}
+	
+	// Constructor. Starts the writer thread.
+	public RecordingParseListener(PrintStream aTarget, int aBatchSize)
+	{
+		theTarget = aTarget;
+		theBatch = new int[aBatchSize];
+		theCount = 0;
+		theTexts = new ArrayList<byte[]>();
+		theLastWrite = null;
+		
+		theWriter = Executors.newSingleThreadExecutor(new ThreadFactory()
+		{
+			public Thread newThread(Runnable aRunnable)
+			{
+				Thread theThread = new Thread(aRunnable, "ParseTrace");
+				theThread.setDaemon(true);
+				return theThread;
+			}
+		});
+		
+		theOutput = new PrintStream(new OutputStream()
+		{
+			public void write(int aByte)
+			{
+				RecordText(new byte[] {(byte) aByte});
+			}
+			
+			public void write(byte[] aBytes, int aOffset, int aLength)
+			{
+				RecordText(Arrays.copyOfRange(aBytes, aOffset, aOffset + aLength));
+			}
+		});
+	}
+	
+	public void Event(ParseEvent aEvent)
+	{
+		theBatch[theCount++] = aEvent.ordinal();
+		if(theCount == theBatch.length)
+			WriteBatch();
+	}
+	
+	// Returns a stream whose text is recorded in order with the events.
+	public PrintStream getOutput()
+	{
+		return theOutput;
+	}
+	
+	// Prints everything recorded so far, and waits until it is printed.
+	public void Flush()
+	{
+		WriteBatch();
+		if(theLastWrite == null)
+			return;
+		
+		try
+		{
+			theLastWrite.get();
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch(ExecutionException e)
+		{
+			throw new RuntimeException(e.getCause());
+		}
+	}
+	
+	// Prints everything recorded and stops the writer thread.
+	public void Close()
+	{
+		Flush();
+		theWriter.shutdown();
+	}
+	
+	// Records a text written to the output.
+	private void RecordText(byte[] aText)
+	{
+		theTexts.add(aText);
+		theBatch[theCount++] = TEXT;
+		if(theCount == theBatch.length)
+			WriteBatch();
+	}
+	
+	// Hands the current batch to the writer thread and starts a new one.
+	private void WriteBatch()
+	{
+		if(theCount == 0)
+			return;
+		
+		final int[] theEntries = theBatch;
+		final int theEntryCount = theCount;
+		final List<byte[]> theEntryTexts = theTexts;
+		theBatch = new int[theBatch.length];
+		theCount = 0;
+		theTexts = new ArrayList<byte[]>();
+		
+		theLastWrite = theWriter.submit(new Runnable()
+		{
+			public void run()
+			{
+				Print(theEntries, theEntryCount, theEntryTexts);
+			}
+		});
+	}
+	
+	// Writer thread body. Prints a batch to the target.
+	private void Print(int[] aEntries, int aCount, List<byte[]> aTexts)
+	{
+		int theText = 0;
+		for(int i = 0; i < aCount; i++)
+		{
+			if(aEntries[i] == TEXT)
+			{
+				byte[] theBytes = aTexts.get(theText++);
+				theTarget.write(theBytes, 0, theBytes.length);
+			}
+			else
+			{
+				theTarget.println(EVENTS[aEntries[i]].getMessage());
+			}
+		}
+		theTarget.flush();
+	}
+}
@@ -9,44 +9,127 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PushbackReader;
 import java.io.Reader;
-import java.util.Arrays;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
 
+import objects.LineIndex;
+import objects.NameTable;
+import objects.SpellingCache;
 import objects.Token;
+import objects.TokenBuffer;
+import objects.TokenText;
 import objects.TokenType;
 
 // Provides functionality for the lexical analysis of a given file.
-public class Scan
+public class Scan implements TokenSource
 {
-	private List<Character> IDENTITY_CHARACTERS;
-	private List<Character> NUMBER_CHARACTERS;
-	private List<Character> STRING_CHARACTERS;
-	private List<Character> CHAR_CHARACTERS;
-	private List<Character> ANNOYING_CHARACTERS;
-	private List<String> RESERVED_WORDS;
-	
 	public PushbackReader READER;
 	public boolean END_REACHED;
 	
+	// Source bytes and cursor for the memory-mapped input mode. SOURCE is null when reading through READER.
+	private ByteBuffer SOURCE;
+	private int POSITION;
+	private int LIMIT;
+	
+	// Streaming input mode. SOURCE is then a window refilled from CHANNEL, starting WINDOW_BASE bytes into the stream.
+	private ReadableByteChannel CHANNEL;
+	private long WINDOW_BASE;
+	private boolean STREAM_ENDED;
+	
 	private int LINE_NUMBER;
 	
-	// Scan constructor.
-	public Scan(String aFilePath) throws IOException
+	// Offset to line and column lookups for the mapped source, created on request.
+	private LineIndex LINE_INDEX;
+	
+	// Nesting depth of a block comment left open at the end of the source.
+	private int OPEN_COMMENT_DEPTH;
+	
+	// Start of the token being scanned, and its text when reading through READER.
+	private int TOKEN_START;
+	private StringBuilder TOKEN_VALUE;
+	
+	// Value of the number token being scanned. Floats are held as their raw double bits.
+	private long NUMBER_VALUE;
+	
+	// Ids of the identifiers scanned, from the NameTable of the compilation.
+	private SpellingCache SPELLINGS;
+	
+	// Returned by ScanNextToken once the source is exhausted.
+	private static final byte END_OF_SOURCE = -2;
+	
+	// Default size of the streaming window. It only grows to hold a longer token.
+	public static final int DEFAULT_WINDOW_SIZE = 1 << 16;
+	
+	// Powers of ten a double holds exactly, for decoding short float literals without rounding twice.
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+	
+	// Scan constructor. Memory-maps the source file. Identifiers take their ids from aNames.
+	public Scan(String aFilePath, NameTable aNames) throws IOException
 	{
-		// Read file path and prep READER value.
+		this(aFilePath, true, aNames);
+	}
+	
+	// Scan constructor. Reads through a PushbackReader when aMemoryMapped is false.
+	public Scan(String aFilePath, boolean aMemoryMapped, NameTable aNames) throws IOException
+	{
+		// Read file path and prep SOURCE or READER value.
 		File theFileFromPath = new File(aFilePath);
-		this.ReadSourceFile(theFileFromPath);
+		if(aMemoryMapped)
+			this.MapSourceFile(theFileFromPath);
+		else
+			this.ReadSourceFile(theFileFromPath);
 		
 		// Initialize variables.
-		IDENTITY_CHARACTERS = CreateLegalIdentifierCharacterList();
-		NUMBER_CHARACTERS = CreateLegalNumberCharacterList();
-		STRING_CHARACTERS = CreateLegalStringCharacterList();
-		CHAR_CHARACTERS = CreateLegalCharacterCharacterList();
-		ANNOYING_CHARACTERS = CreateAnnoyingCharacterList();
-		RESERVED_WORDS = CreateReservedWords();
+		LINE_NUMBER = 1;
+		END_REACHED = false;
+		SPELLINGS = new SpellingCache(aNames);
+	}
+	
+	// Scan constructor. Scans the bytes of aSource between aStart and aEnd, numbering lines from one.
+	public Scan(ByteBuffer aSource, int aStart, int aEnd, NameTable aNames)
+	{
+		SOURCE = aSource;
+		POSITION = aStart;
+		LIMIT = aEnd;
 		
 		LINE_NUMBER = 1;
 		END_REACHED = false;
+		SPELLINGS = new SpellingCache(aNames);
+	}
+	
+	// Scan constructor. Streams the source from aChannel through a fixed window of aWindowSize bytes.
+	public Scan(ReadableByteChannel aChannel, int aWindowSize, NameTable aNames)
+	{
+		CHANNEL = aChannel;
+		SOURCE = ByteBuffer.allocate(Math.max(aWindowSize, 16));
+		POSITION = 0;
+		LIMIT = 0;
+		WINDOW_BASE = 0;
+		STREAM_ENDED = false;
+		
+		LINE_NUMBER = 1;
+		END_REACHED = false;
+		SPELLINGS = new SpellingCache(aNames);
+	}
+	
+	// Scan constructor. Streams the source from aChannel, such as a pipe or standard input.
+	public Scan(ReadableByteChannel aChannel, NameTable aNames)
+	{
+		this(aChannel, DEFAULT_WINDOW_SIZE, aNames);
+	}
+	
+	// Scan constructor. Streams the source from aStream.
+	public Scan(InputStream aStream, NameTable aNames)
+	{
+		this(Channels.newChannel(aStream), DEFAULT_WINDOW_SIZE, aNames);
 	}
 	
 	// Determines the token type of a passed character.
@@ -54,532 +137,618 @@ public class Scan
 	{
 		Token theToken = null;
 		
-		TokenType theTokenType = null;
-		int theCharacterInt=-1;
-		StringBuilder theTokenValue = new StringBuilder();
-		boolean theTokenIsValid = true;
-		
-		if ((theCharacterInt = READER.read()) == -1)
+		byte theState = ScanNextToken();
+		if(theState == END_OF_SOURCE)
 		{
 			END_REACHED = true;
 			return theToken;
 		}
-
-		char theChar = (char) theCharacterInt;
 		
-		while(ANNOYING_CHARACTERS.contains(theChar))
+		// Illegal characters produce no token.
+		if(theState == ScanTable.STOP)
+			return theToken;
+		
+		// Mapped and streamed sources give the token a span.
+		int theLength = SOURCE == null ? 0 : TrimmedTokenEnd() - TOKEN_START;
+		
+		// Operators and separators share one spelling per state. A streaming window is reused, so its text is copied.
+		CharSequence theValue = ScanTable.SPELLINGS[theState];
+		if(theValue == null)
 		{
-			if(theChar == '/')
-			{
-				if(CommentHandler(theChar))
-				{
-					theToken = new Token(TokenType.DIVIDE, "/", LINE_NUMBER);
-					return theToken;
-				}
-			}
-			else if(theChar == '\n')
-				LINE_NUMBER++;
-
-			return GetToken();
+			if(SOURCE == null)
+				theValue = TOKEN_VALUE.toString().trim();
+			else if(CHANNEL != null)
+				theValue = new TokenText(SOURCE, TOKEN_START, theLength).toString();
+			else
+				theValue = new TokenText(SOURCE, TOKEN_START, theLength);
 		}
 		
-		// Determine token based on characters.
-		switch(theChar)
+		// Identifiers spelling a reserved word or built-in procedure take its token type.
+		TokenType theTokenType = ScanTable.ACCEPTS[theState];
+		if(theTokenType == TokenType.IDENTITY)
+			theTokenType = KeywordTable.Lookup(theValue);
+		
+		// Offsets past the range of a span are left unknown.
+		long theStart = WINDOW_BASE + TOKEN_START;
+		if(SOURCE == null || theStart > Integer.MAX_VALUE)
+			theToken = new Token(theTokenType, theValue, LINE_NUMBER);
+		else
+			theToken = new Token(theTokenType, theValue, LINE_NUMBER, (int) theStart, theLength);
+		if(theState == ScanTable.INTEGER_NUMBER)
+			theToken.IntegerValue = NUMBER_VALUE;
+		else if(theState == ScanTable.FLOAT_NUMBER)
+			theToken.FloatValue = Double.longBitsToDouble(NUMBER_VALUE);
+		else if(theTokenType == TokenType.IDENTITY)
+			theToken.NameId = SPELLINGS.InternSpelling(theValue);
+		
+		return theToken;
+	}
+	
+	// Scans every remaining token of a memory-mapped or streamed source into a packed TokenBuffer. The rest of a stream
+	// is read into memory first.
+	public TokenBuffer ScanAll() throws IOException
+	{
+		return ScanAll(TokenBuffer.DEFAULT_OFF_HEAP_THRESHOLD);
+	}
+	
+	// Scans every remaining token into a TokenBuffer that moves off-heap past aOffHeapThreshold tokens.
+	public TokenBuffer ScanAll(int aOffHeapThreshold) throws IOException
+	{
+		BufferStream();
+		if(SOURCE == null)
+			throw new IllegalStateException("Token buffers require a memory-mapped or streamed source.");
+		
+		TokenBuffer theBuffer = new TokenBuffer(SOURCE, aOffHeapThreshold);
+		byte theState;
+		
+		while((theState = ScanNextToken()) != END_OF_SOURCE)
+			AddToken(theBuffer, theState);
+		
+		END_REACHED = true;
+		return theBuffer;
+	}
+	
+	// Splices an edit into the mapped source and re-lexes only the tokens it can change. aPrevious holds the tokens
+	// of the source before the edit. Scanning restarts after the last unaffected token and stops once a token starts
+	// where one of aPrevious started past the edit, the rest being copied with shifted offsets and lines.
+	// Scan reads the edited source afterwards and is left at its end.
+	public TokenBuffer Relex(TokenBuffer aPrevious, int aOffset, int aRemovedLength, String aInserted) throws IOException
+	{
+		ByteBuffer theOldSource = aPrevious.getSource();
+		int theOldLimit = theOldSource.limit();
+		if(aOffset < 0 || aRemovedLength < 0 || aOffset + aRemovedLength > theOldLimit)
+			throw new IndexOutOfBoundsException("Edit of " + aRemovedLength + " bytes at " + aOffset + " is outside the source.");
+		
+		byte[] theInserted = aInserted.getBytes(StandardCharsets.ISO_8859_1);
+		int theShift = theInserted.length - aRemovedLength;
+		
+		// Copy the source with the edit applied.
+		ByteBuffer theSource = ByteBuffer.allocate(theOldLimit + theShift);
+		ByteBuffer thePart = theOldSource.duplicate();
+		thePart.limit(aOffset);
+		thePart.position(0);
+		theSource.put(thePart);
+		theSource.put(theInserted);
+		thePart.limit(theOldLimit);
+		thePart.position(aOffset + aRemovedLength);
+		theSource.put(thePart);
+		theSource.clear();
+		
+		// Keep the tokens ending before the edit. Their lookahead character is unchanged too. Error tokens may
+		// hold a newline, so the restart line is taken from the last token that cannot.
+		int theKept = UnaffectedTokenCount(aPrevious, aOffset);
+		TokenBuffer theBuffer = new TokenBuffer(theSource);
+		theBuffer.AddAll(aPrevious, 0, theKept, 0, 0);
+		
+		SOURCE = theSource;
+		CHANNEL = null;
+		WINDOW_BASE = 0;
+		LIMIT = theSource.limit();
+		POSITION = theKept == 0 ? 0 : aPrevious.getStart(theKept - 1) + aPrevious.getLength(theKept - 1);
+		LINE_NUMBER = theKept == 0 ? 1 : aPrevious.getLine(theKept - 1);
+		LINE_INDEX = null;
+		OPEN_COMMENT_DEPTH = 0;
+		END_REACHED = false;
+		
+		int theEditEnd = aOffset + theInserted.length;
+		int theOldToken = theKept;
+		byte theState;
+		
+		while((theState = ScanNextToken()) != END_OF_SOURCE)
 		{
-			// Identifier case.
-			case 'a': case 'b': case 'c': case 'd': case 'e': case 'f': case 'g': case 'h': case 'i': case 'j': case 'k': case 'l': case 'm': 
-			case 'n': case 'o': case 'p': case 'q': case 'r': case 's': case 't': case 'u': case 'v': case 'w': case 'x': case 'y': case 'z':
-			case 'A': case 'B': case 'C': case 'D': case 'E': case 'F': case 'G': case 'H': case 'I': case 'J': case 'K': case 'L': case 'M': 
-			case 'N': case 'O': case 'P': case 'Q': case 'R': case 'S': case 'T': case 'U': case 'V': case 'W': case 'X': case 'Y': case 'Z':
-				theTokenType = TokenType.IDENTITY;
-				theTokenValue.append(theChar);
-				while (theTokenType == TokenType.IDENTITY)
-				{
-					theChar = (char) READER.read();
-					if (!IDENTITY_CHARACTERS.contains(theChar))
-					{
-						if (RESERVED_WORDS.contains(theTokenValue.toString().toLowerCase()))
-							theTokenType = GetReservedIdentifier(theTokenValue.toString().toLowerCase());
-						theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-						READER.unread((int)theChar);
-						break;
-					}
-					else
-						theTokenValue.append(theChar);
-				}
-				break;
-			case '0': case '1': case '2': case '3': case '4': case '5': case '6': case '7': case '8': case '9':
-				theTokenType = TokenType.INTEGER;
-				theTokenValue.append(theChar);
-				boolean thePeriodCount = false;
-				while (theTokenType == TokenType.INTEGER || theTokenType == TokenType.FLOAT)
-				{
-					theChar = (char) READER.read();
-					if (!NUMBER_CHARACTERS.contains(theChar) && theChar != '.')
-					{
-						break;
-					}
-					else if (theChar == '.' && !thePeriodCount)
-					{
-						thePeriodCount = true;
-						theTokenType = TokenType.FLOAT;
-					}
-					else if (theChar == '.' && thePeriodCount)
-					{
-						theTokenIsValid = false;
-					}
-					
-					theTokenValue.append(theChar);
-				}
+			AddToken(theBuffer, theState);
+			if(TOKEN_START < theEditEnd)
+				continue;
+			
+			// Past the edit the text is unchanged, so from a shared token start both scans produce the same tokens.
+			int theOldStart = TOKEN_START - theShift;
+			while(theOldToken < aPrevious.getCount() && aPrevious.getStart(theOldToken) < theOldStart)
+				theOldToken++;
+			
+			if(theOldToken < aPrevious.getCount() && aPrevious.getStart(theOldToken) == theOldStart)
+			{
+				int theLineShift = LINE_NUMBER - aPrevious.getLine(theOldToken);
+				theBuffer.AddAll(aPrevious, theOldToken + 1, aPrevious.getCount(), theShift, theLineShift);
 				
-				if(!theTokenIsValid)
-					theTokenType = TokenType.ERROR;
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				READER.unread((int)theChar);
-				break;
-			case '\'':
-				theTokenType = TokenType.CHAR;
-				theTokenValue.append(theChar);
-				while (theTokenType == TokenType.CHAR)
-				{
-					theChar = (char) READER.read();
-					if (!CHAR_CHARACTERS.contains(theChar) && theChar != '\'')
-					{
-						theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-						READER.unread((int)theChar);
-						break;
-					}
-					else if (theChar == '\'')
-					{
-						theTokenValue.append(theChar);
-						theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-						break;
-					}
-					else
-						theTokenValue.append(theChar);
-				}
-				break;
-			case '"':
-				theTokenType = TokenType.STRING;
-				theTokenValue.append(theChar);
-				while (theTokenType == TokenType.STRING)
-				{
-					theChar = (char) READER.read();
-					if (!STRING_CHARACTERS.contains(theChar) && theChar != '"')
-					{
-						theTokenType = TokenType.ERROR;
-						boolean buildError = true;
-						while(buildError)
-						{
-							if (theChar == '"')
-							{
-								theTokenValue.append(theChar);
-								buildError = false;
-								break;
-							}
-							
-							if (theChar == '\n')
-							{
-								LINE_NUMBER++;
-								buildError = false;
-								break;
-							}
-							theTokenValue.append(theChar);
-							theChar = (char) READER.read();
-						}
-						theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-						break;
-					}
-					else if (theChar == '"')
-					{
-						theTokenValue.append(theChar);
-						theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-						break;
-					}
-					else
-						theTokenValue.append(theChar);
-				}
-				break;
-			case '*':
-				theTokenValue.append(theChar);
-				theChar = (char) READER.read();
-				if (theChar == '/')
-				{
-					theTokenType = TokenType.END_BLOCK_COMMENT;
-					theTokenIsValid = false;
-					theTokenValue.append(theChar);
-				}
-				else
-				{
-					theTokenType = TokenType.MULTIPLY;
-					READER.unread((int)theChar);
-				}
-				if(!theTokenIsValid)
-					theTokenType = TokenType.ERROR;
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;
-			case ':':
-				theChar = (char) READER.read();
-				if (theChar == '=')
-				{
-					theTokenType = TokenType.ASSIGN;
-					theTokenValue.append(":=");
-				}
-				else
-				{
-					READER.unread((int) theChar);
-					theTokenValue.append(':');
-					theTokenType = TokenType.COLON;
-				}
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;
-			case '!':
-				theChar = (char) READER.read();
-				if (theChar == '=')
-				{
-					theTokenType = TokenType.NOT_EQUIVALENT;
-					theTokenValue.append("!=");
-				}
-				else
-				{
-					READER.unread((int) theChar);
-					theTokenValue.append('!');
-					theTokenType = TokenType.ERROR;
-					theTokenIsValid = false;
-				}
-				if(!theTokenIsValid)
-					theTokenType = TokenType.ERROR;
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;
-			case '=':
-				theChar = (char) READER.read();
-				if (theChar == '=')
-				{
-					theTokenType = TokenType.EQUIVALENT;
-					theTokenValue.append("==");
-				}
-				else
-				{
-					READER.unread((int) theChar);
-					theTokenValue.append('=');
-					theTokenType = TokenType.ERROR;
-					theTokenIsValid = false;
-				}
-				if(!theTokenIsValid)
-					theTokenType = TokenType.ERROR;
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;
-			case '<':
-				theChar = (char) READER.read();
-				if (theChar == '=')
-				{
-					theTokenType = TokenType.LESS_THAN_EQ;
-					theTokenValue.append("<=");
-				}
-				else
-				{
-					READER.unread((int) theChar);
-					theTokenValue.append('<');
-					theTokenType = TokenType.LESS_THAN;
-				}
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;
-			case '>':
-				theChar = (char) READER.read();
-				if (theChar == '=')
-				{
-					theTokenType = TokenType.GREATER_THAN_EQ;
-					theTokenValue.append(">=");
-				}
-				else
-				{
-					READER.unread((int) theChar);
-					theTokenValue.append('>');
-					theTokenType = TokenType.GREATER_THAN;
-				}
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;
-			case '+':
-				theTokenType = TokenType.PLUS;
-				theTokenValue.append(theChar);
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;	
-			case '-':
-				theTokenType = TokenType.MINUS;
-				theTokenValue.append(theChar);
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;
-			case ',':
-				theTokenType = TokenType.COMMA;
-				theTokenValue.append(theChar);
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;
-			case '&':
-				theTokenType = TokenType.AND;
-				theTokenValue.append(theChar);
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;
-			case '|':
-				theTokenType = TokenType.OR;
-				theTokenValue.append(theChar);
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;
-			case ';':
-				theTokenType = TokenType.SEMICOLON;
-				theTokenValue.append(theChar);
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;
-			case '[':
-				theTokenType = TokenType.LEFT_BRACKET;
-				theTokenValue.append(theChar);
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;
-			case ']':
-				theTokenType = TokenType.RIGHT_BRACKET;
-				theTokenValue.append(theChar);
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;
-			case '(':
-				theTokenType = TokenType.LEFT_PARENTHESIS;
-				theTokenValue.append(theChar);
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break;
-			case ')':
-				theTokenType = TokenType.RIGHT_PARENTHESIS;
-				theTokenValue.append(theChar);
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
-				break; 
-			case '.':
-				theTokenType = TokenType.PERIOD;
-				theTokenValue.append(theChar);
-				theToken = new Token(theTokenType, theTokenValue.toString().trim(), LINE_NUMBER);
+				POSITION = LIMIT;
 				break;
+			}
 		}
 		
-		return theToken;
+		END_REACHED = true;
+		return theBuffer;
 	}
 	
-	// Ignores comments till complete. If not comment, return true to indicate divisor. 
-	private boolean CommentHandler(char aChar) throws IOException
+	// Scans the rest of the source on aPool in chunks of about aChunkSize bytes. Matches ScanAll token for token.
+	public TokenBuffer ScanAllParallel(ForkJoinPool aPool, int aChunkSize) throws IOException
 	{
-		int theBlockCount = 0;
-		boolean isDivider = false;
-		aChar = (char) READER.read();
-		int aCharInt;
+		BufferStream();
+		if(SOURCE == null)
+			throw new IllegalStateException("Token buffers require a memory-mapped or streamed source.");
 		
-		switch(aChar)
+		TokenBuffer theBuffer = ParallelScan.ScanAll(SOURCE, POSITION, LIMIT, LINE_NUMBER, SPELLINGS.getNames(), aPool, aChunkSize);
+		
+		POSITION = LIMIT;
+		END_REACHED = true;
+		return theBuffer;
+	}
+	
+	// Scans the rest of the source on the common pool.
+	public TokenBuffer ScanAllParallel() throws IOException
+	{
+		return ScanAllParallel(ForkJoinPool.commonPool(), ParallelScan.DEFAULT_CHUNK_SIZE);
+	}
+	
+	// Appends the token ScanNextToken just completed in aState.
+	private void AddToken(TokenBuffer aBuffer, byte aState)
+	{
+		if(aState == ScanTable.STOP)
 		{
-			case '/':
-				while ((aChar = (char) READER.read()) != '\n')
-				{
-					// Place holder...
-				}
-				LINE_NUMBER++;
-				break;
-			case '*':
-				theBlockCount++;
-				while ((aCharInt = READER.read()) != -1)
-				{
-					aChar = (char)aCharInt;
-					switch (aChar)
-					{
-						case '/':
-							if ((aChar = (char)READER.read()) == '*')
-								theBlockCount++;
-							break;
-						case '*':
-							if ((aChar = (char)READER.read()) == '/')
-								theBlockCount--;
-							break;
-						case '\n':
-							break;
-					}
-					if (theBlockCount == 0)
-						break;
-				}
-				break;
-			default:
-				isDivider = true;
-				READER.unread((int)aChar);
-				break;
+			aBuffer.Add(null, TOKEN_START, 1, LINE_NUMBER);
+			return;
 		}
-		return isDivider;
+		
+		int theLength = TrimmedTokenEnd() - TOKEN_START;
+		TokenType theTokenType = ScanTable.ACCEPTS[aState];
+		if(theTokenType == TokenType.IDENTITY)
+			theTokenType = KeywordTable.Lookup(SOURCE, TOKEN_START, theLength);
+		
+		// An identifier's value is the id of its name.
+		long theValue = theTokenType == TokenType.IDENTITY ? SPELLINGS.InternSpelling(SOURCE, TOKEN_START, theLength) : NUMBER_VALUE;
+		aBuffer.Add(theTokenType, TOKEN_START, theLength, LINE_NUMBER, theValue);
 	}
 	
-	// Read provided file and prepare READER global. 
-	private void ReadSourceFile(File theFileToRead) throws IOException
+	// Counts the leading tokens of aTokens that end before aOffset, stopping at the last one that is not an error.
+	private static int UnaffectedTokenCount(TokenBuffer aTokens, int aOffset)
 	{
-		// Initialize Input Stream.
-		InputStream theInputStream = null;
+		// Find the first token starting at or after the offset.
+		int theLow = 0;
+		int theHigh = aTokens.getCount();
+		while(theLow < theHigh)
+		{
+			int theMiddle = (theLow + theHigh) >>> 1;
+			if(aTokens.getStart(theMiddle) < aOffset)
+				theLow = theMiddle + 1;
+			else
+				theHigh = theMiddle;
+		}
 		
-		try
+		int theCount = theLow;
+		while(theCount > 0 && (aTokens.getStart(theCount - 1) + aTokens.getLength(theCount - 1) >= aOffset
+				|| aTokens.getType(theCount - 1) == null || aTokens.getType(theCount - 1) == TokenType.ERROR))
+			theCount--;
+		
+		return theCount;
+	}
+	
+	// Returns the line index of a source held in memory from its start, or null when reading through READER or streaming.
+	public LineIndex GetLineIndex()
+	{
+		if(SOURCE != null && CHANNEL == null && WINDOW_BASE == 0 && LINE_INDEX == null)
+			LINE_INDEX = new LineIndex(SOURCE);
+		
+		return LINE_INDEX;
+	}
+	
+	// Continues inside a block comment opened aDepth levels deep before the scanned range.
+	public void ResumeBlockComment(int aDepth) throws IOException
+	{
+		if(aDepth > 0)
+			SkipBlockComment(aDepth);
+	}
+	
+	// Returns the nesting depth of a block comment still open at the end of the source, or 0.
+	public int GetOpenCommentDepth()
+	{
+		return OPEN_COMMENT_DEPTH;
+	}
+	
+	// Returns the current line, one more than the newlines consumed so far.
+	public int GetLineNumber()
+	{
+		return LINE_NUMBER;
+	}
+	
+	// Runs the transition table over the next token. Returns its final state, STOP for an illegal character,
+	// or END_OF_SOURCE. The token starts at TOKEN_START, and its text is in TOKEN_VALUE for reader sources.
+	private byte ScanNextToken() throws IOException
+	{
+		int theCharacterInt;
+		
+		// Find the first character of the next token, skipping whitespace and comments.
+		TOKEN_START = -1;
+		if ((theCharacterInt = SkipWhitespaceAndComments()) == -1)
+			return END_OF_SOURCE;
+		
+		// Mapped sources slice token text out of SOURCE. Reader sources have to copy it.
+		TOKEN_START = POSITION - 1;
+		if(SOURCE == null)
 		{
-			theInputStream = new FileInputStream(theFileToRead);
-		} 
-		catch (FileNotFoundException e)
+			TOKEN_VALUE = new StringBuilder();
+			TOKEN_VALUE.append((char) theCharacterInt);
+		}
+		
+		byte theClass = ScanTable.ClassOf(theCharacterInt);
+		byte theState = ScanTable.TRANSITIONS[ScanTable.START][theClass];
+		if(theState == ScanTable.STOP)
+			return theState;
+		
+		NUMBER_VALUE = 0;
+		if(theState == ScanTable.INTEGER_NUMBER)
+			return ScanNumber(theCharacterInt);
+		
+		// Follow transitions until the token is complete or the next character does not belong to it.
+		while(!ScanTable.TERMINAL[theState])
 		{
-			System.out.println("Failed to find file. Exception code: " + e.toString());
-			return;
+			theCharacterInt = ReadCharacter();
+			theClass = ScanTable.ClassOf(theCharacterInt);
+			
+			byte theNextState = ScanTable.TRANSITIONS[theState][theClass];
+			if(theNextState == ScanTable.STOP)
+			{
+				if(theCharacterInt != -1)
+					UnreadCharacter(theCharacterInt);
+				break;
+			}
+			
+			if(theClass == ScanTable.CLASS_NEWLINE)
+				LINE_NUMBER++;
+			
+			if(SOURCE == null)
+				TOKEN_VALUE.append((char) theCharacterInt);
+			theState = theNextState;
 		}
 		
-		// Generate buffer for read efficiency.
-        Reader theReader = new InputStreamReader(theInputStream);
-        Reader theBuffer = new BufferedReader(theReader);
-        READER = new PushbackReader(theBuffer);
+		return theState;
 	}
 	
-	// Updates the TokenType value for a reserved word. 
-	private TokenType GetReservedIdentifier(String aReservedWord)
+	// Follows the number states from a first digit, decoding the literal into NUMBER_VALUE as the digits are read.
+	// Underscores are skipped. An integer too large for a long scans as a bad number.
+	private byte ScanNumber(int aFirstDigit) throws IOException
 	{
-		// Initialize return variable.
-		TokenType theReturnType = TokenType.IDENTITY;
+		byte theState = ScanTable.INTEGER_NUMBER;
+		long theMantissa = aFirstDigit - '0';
+		int theFractionDigits = 0;
+		boolean isOverflow = false;
 		
-		switch(aReservedWord)
+		while(true)
 		{
-			case "program":
-				theReturnType = TokenType.PROGRAM;
-				break;
-			case "is":
-				theReturnType = TokenType.IS;
-				break;
-			case "end":
-				theReturnType = TokenType.END;
-				break;
-			case "begin":
-				theReturnType = TokenType.BEGIN;
-				break;
-			case "global":
-				theReturnType = TokenType.GLOBAL;
-				break;
-			case "procedure":
-				theReturnType = TokenType.PROCEDURE;
-				break;
-			case "if":
-				theReturnType = TokenType.IF;
-				break;
-			case "then":
-				theReturnType = TokenType.THEN;
-				break;
-			case "else":
-				theReturnType = TokenType.ELSE;
-				break;
-			case "for":
-				theReturnType = TokenType.FOR;
-				break;
-			case "in":
-				theReturnType = TokenType.IN;
-				break;
-			case "out":
-				theReturnType = TokenType.OUT;
-				break;
-			case "inout":
-				theReturnType = TokenType.INOUT;
-				break;
-			case "true":
-				theReturnType = TokenType.TRUE;
-				break;
-			case "false":
-				theReturnType = TokenType.FALSE;
-				break;
-			case "not":
-				theReturnType = TokenType.NOT;
-				break;
-			case "integer":
-				theReturnType = TokenType.INTEGER;
-				break;
-			case "float":
-				theReturnType = TokenType.FLOAT;
-				break;
-			case "bool":
-				theReturnType = TokenType.BOOL;
-				break;
-			case "char":
-				theReturnType = TokenType.CHAR;
-				break;
-			case "return":
-				theReturnType = TokenType.RETURN;
-				break;
-			case "string":
-				theReturnType = TokenType.STRING;
-				break;
-			case "putbool":
-				theReturnType = TokenType.PUTBOOL;
-				break;
-			case "putinteger":
-				theReturnType = TokenType.PUTINTEGER;
-				break;
-			case "putfloat":
-				theReturnType = TokenType.PUTFLOAT;
-				break;
-			case "putstring":
-				theReturnType = TokenType.PUTSTRING;
-				break;
-			case "putchar":
-				theReturnType = TokenType.PUTCHAR;
-				break;
-			case "getbool":
-				theReturnType = TokenType.GETBOOL;
-				break;
-			case "getinteger":
-				theReturnType = TokenType.GETINTEGER;
+			int theCharacterInt = ReadCharacter();
+			byte theClass = ScanTable.ClassOf(theCharacterInt);
+			
+			byte theNextState = ScanTable.TRANSITIONS[theState][theClass];
+			if(theNextState == ScanTable.STOP)
+			{
+				if(theCharacterInt != -1)
+					UnreadCharacter(theCharacterInt);
 				break;
-			case "getfloat":
-				theReturnType = TokenType.GETFLOAT;
+			}
+			
+			if(SOURCE == null)
+				TOKEN_VALUE.append((char) theCharacterInt);
+			theState = theNextState;
+			
+			if(theClass == ScanTable.CLASS_DIGIT)
+			{
+				int theDigit = theCharacterInt - '0';
+				if(theMantissa > (Long.MAX_VALUE - theDigit) / 10)
+					isOverflow = true;
+				else
+					theMantissa = theMantissa * 10 + theDigit;
+				
+				if(theState == ScanTable.FLOAT_NUMBER)
+					theFractionDigits++;
+			}
+		}
+		
+		if(theState == ScanTable.INTEGER_NUMBER)
+		{
+			if(isOverflow)
+				return ScanTable.BAD_NUMBER;
+			
+			NUMBER_VALUE = theMantissa;
+		}
+		else if(theState == ScanTable.FLOAT_NUMBER)
+		{
+			// Mantissas and scales a double holds exactly divide to a correctly rounded value.
+			double theValue;
+			if(!isOverflow && theMantissa < 1L << 53 && theFractionDigits < POWERS_OF_TEN.length)
+				theValue = theMantissa / POWERS_OF_TEN[theFractionDigits];
+			else
+				theValue = Double.parseDouble(NumberDigits());
+			
+			if(Double.isInfinite(theValue))
+				return ScanTable.BAD_NUMBER;
+			
+			NUMBER_VALUE = Double.doubleToRawLongBits(theValue);
+		}
+		
+		return theState;
+	}
+	
+	// Returns the text of the number token being scanned without its underscores.
+	private String NumberDigits()
+	{
+		StringBuilder theDigits = new StringBuilder();
+		if(SOURCE == null)
+		{
+			for(int i = 0; i < TOKEN_VALUE.length(); i++)
+			{
+				if(TOKEN_VALUE.charAt(i) != '_')
+					theDigits.append(TOKEN_VALUE.charAt(i));
+			}
+		}
+		else
+		{
+			for(int i = TOKEN_START; i < POSITION; i++)
+			{
+				char theCharacter = (char) (SOURCE.get(i) & 0xFF);
+				if(theCharacter != '_')
+					theDigits.append(theCharacter);
+			}
+		}
+		
+		return theDigits.toString();
+	}
+	
+	// Returns the end of the current mapped token, without trailing whitespace.
+	private int TrimmedTokenEnd()
+	{
+		int theEnd = POSITION;
+		while(theEnd > TOKEN_START && (SOURCE.get(theEnd - 1) & 0xFF) <= ' ')
+			theEnd--;
+		
+		return theEnd;
+	}
+	
+	// Consumes whitespace, line comments and nested block comments. Returns the first character after them, or -1.
+	private int SkipWhitespaceAndComments() throws IOException
+	{
+		int theCharacterInt;
+		
+		while ((theCharacterInt = ReadCharacter()) != -1)
+		{
+			byte theClass = ScanTable.ClassOf(theCharacterInt);
+			
+			if(theClass == ScanTable.CLASS_NEWLINE)
+			{
+				LINE_NUMBER++;
+				continue;
+			}
+			
+			if(theClass == ScanTable.CLASS_SPACE || theClass == ScanTable.CLASS_BLANK)
+				continue;
+			
+			if(theClass != ScanTable.CLASS_SLASH)
 				break;
-			case "getstring":
-				theReturnType = TokenType.GETSTRING;
+			
+			// A slash opens a comment or is a divider, decided by the character after it.
+			int theNextCharacterInt = ReadCharacter();
+			byte theCommentState = ScanTable.TRANSITIONS[ScanTable.SLASH][ScanTable.ClassOf(theNextCharacterInt)];
+			
+			if(theCommentState == ScanTable.LINE_COMMENT)
+				SkipLineComment();
+			else if(theCommentState == ScanTable.BLOCK_COMMENT)
+				SkipBlockComment(1);
+			else
+			{
+				if(theNextCharacterInt != -1)
+					UnreadCharacter(theNextCharacterInt);
 				break;
-			case "getchar":
-				theReturnType = TokenType.GETCHAR;
+			}
+		}
+		
+		return theCharacterInt;
+	}
+	
+	// Ignores the rest of a line comment, including its newline.
+	private void SkipLineComment() throws IOException
+	{
+		int theCharacterInt;
+		
+		while ((theCharacterInt = ReadCharacter()) != -1)
+		{
+			if(theCharacterInt == '\n')
+			{
+				LINE_NUMBER++;
 				break;
+			}
 		}
+	}
+	
+	// Ignores a block comment aBlockCount levels deep. Nested openers must each be closed.
+	private void SkipBlockComment(int aBlockCount) throws IOException
+	{
+		int theBlockCount = aBlockCount;
+		int thePreviousCharacterInt = -1;
+		int theCharacterInt;
+		
+		while ((theCharacterInt = ReadCharacter()) != -1)
+		{
+			if(theCharacterInt == '\n')
+				LINE_NUMBER++;
+			
+			if(thePreviousCharacterInt == '/' && theCharacterInt == '*')
+			{
+				theBlockCount++;
+				theCharacterInt = -1;
+			}
+			else if(thePreviousCharacterInt == '*' && theCharacterInt == '/')
+			{
+				if(--theBlockCount == 0)
+					break;
+				theCharacterInt = -1;
+			}
 			
-			return theReturnType;
+			thePreviousCharacterInt = theCharacterInt;
+		}
+		
+		if(theCharacterInt == -1)
+			OPEN_COMMENT_DEPTH = theBlockCount;
 	}
 	
-	// Creates the list of all legal identifier characters.
-	private List<Character> CreateLegalIdentifierCharacterList()
+	// Returns the next source character, or -1 at the end of the source.
+	private int ReadCharacter() throws IOException
 	{
-		return Arrays.asList('a','b','c','d','e','f','g','h','i','j','k','l','m','n','o','p','q','r','s','t','u','v','w','x','y','z',
-				'A','B','C','D','E','F','G','H','I','J','K','L','M','N','O','P','Q','R','S','T','U','V','W','X','Y','Z',
-				'0','1','2','3','4','5','6','7','8','9','_');
+		if(SOURCE != null)
+		{
+			if(POSITION < LIMIT || CHANNEL != null && RefillWindow())
+				return SOURCE.get(POSITION++) & 0xFF;
+			return -1;
+		}
+		
+		return READER.read();
 	}
 	
-	// Creates the list of all legal number characters.
-	private List<Character> CreateLegalNumberCharacterList()
+	// Reads the rest of a streamed source into the window, which then holds the source in memory as a mapped file would.
+	// Offsets into it still count from the start of the window.
+	private void BufferStream() throws IOException
 	{
-		return Arrays.asList('0','1','2','3','4','5','6','7','8','9','_');
+		if(CHANNEL == null)
+			return;
+		
+		SOURCE.limit(SOURCE.capacity());
+		SOURCE.position(LIMIT);
+		while(!STREAM_ENDED)
+		{
+			if(!SOURCE.hasRemaining())
+			{
+				if(SOURCE.capacity() > Integer.MAX_VALUE / 2)
+					throw new IOException("Source is too large to read into memory.");
+				
+				ByteBuffer theWindow = ByteBuffer.allocate(SOURCE.capacity() * 2);
+				SOURCE.flip();
+				theWindow.put(SOURCE);
+				SOURCE = theWindow;
+			}
+			if(CHANNEL.read(SOURCE) < 0)
+				STREAM_ENDED = true;
+		}
+		
+		LIMIT = SOURCE.position();
+		SOURCE.flip();
+		CHANNEL = null;
 	}
 	
-	// Creates the list of all legal string characters.
-	private List<Character> CreateLegalStringCharacterList()
+	// Moves the token being scanned to the front of the streaming window and reads more of the channel after it.
+	// The window doubles only when a single token fills it. Returns false at the end of the stream.
+	private boolean RefillWindow() throws IOException
 	{
-		return Arrays.asList('a','b','c','d','e','f','g','h','i','j','k','l','m','n','o','p','q','r','s','t','u','v','w','x','y','z',
-				'A','B','C','D','E','F','G','H','I','J','K','L','M','N','O','P','Q','R','S','T','U','V','W','X','Y','Z',
-				'0','1','2','3','4','5','6','7','8','9','_',' ',';',':','.','\'',',');
+		if(STREAM_ENDED)
+			return false;
+		
+		// Between tokens only the last character is needed again, being a slash that may start the next token.
+		int theKeep = TOKEN_START >= 0 ? TOKEN_START : Math.max(POSITION - 1, 0);
+		if(theKeep == 0 && LIMIT == SOURCE.capacity())
+		{
+			ByteBuffer theWindow = ByteBuffer.allocate(SOURCE.capacity() * 2);
+			SOURCE.limit(LIMIT);
+			SOURCE.position(0);
+			theWindow.put(SOURCE);
+			SOURCE = theWindow;
+		}
+		else
+		{
+			SOURCE.limit(LIMIT);
+			SOURCE.position(theKeep);
+			SOURCE.compact();
+		}
+		
+		WINDOW_BASE += theKeep;
+		POSITION -= theKeep;
+		LIMIT -= theKeep;
+		if(TOKEN_START >= 0)
+			TOKEN_START -= theKeep;
+		
+		int theRead;
+		while((theRead = CHANNEL.read(SOURCE)) == 0)
+			Thread.yield();
+		
+		if(theRead < 0)
+		{
+			STREAM_ENDED = true;
+			return false;
+		}
+		
+		LIMIT = SOURCE.position();
+		return true;
 	}
 	
-	// Creates the list of all legal char characters.
-	private List<Character> CreateLegalCharacterCharacterList()
+	// Pushes back the last character returned by ReadCharacter.
+	private void UnreadCharacter(int aCharacter) throws IOException
 	{
-		return Arrays.asList('a','b','c','d','e','f','g','h','i','j','k','l','m','n','o','p','q','r','s','t','u','v','w','x','y','z',
-				'A','B','C','D','E','F','G','H','I','J','K','L','M','N','O','P','Q','R','S','T','U','V','W','X','Y','Z',
-				'0','1','2','3','4','5','6','7','8','9','_',' ',';',':','.','\"',',');
+		if(SOURCE != null)
+			POSITION--;
+		else
+			READER.unread(aCharacter);
 	}
 	
-	// Creates list of annoying characters.
-	private List<Character> CreateAnnoyingCharacterList()
+	// Map provided file into memory and prepare SOURCE global. Files too large to map are streamed through a window.
+	private void MapSourceFile(File theFileToMap) throws IOException
 	{
-		return Arrays.asList('\n', '\r', ' ', '\t', '/');
+		if(theFileToMap.length() > Integer.MAX_VALUE)
+		{
+			CHANNEL = FileChannel.open(theFileToMap.toPath(), StandardOpenOption.READ);
+			SOURCE = ByteBuffer.allocate(DEFAULT_WINDOW_SIZE);
+			return;
+		}
+		
+		try (FileChannel theChannel = FileChannel.open(theFileToMap.toPath(), StandardOpenOption.READ))
+		{
+			// The mapping stays valid once the channel is closed.
+			SOURCE = theChannel.map(FileChannel.MapMode.READ_ONLY, 0, theChannel.size());
+			POSITION = 0;
+			LIMIT = SOURCE.limit();
+		}
+		catch (NoSuchFileException e)
+		{
+			// A missing file reads as an empty source.
+			System.out.println("Failed to find file. Exception code: " + e.toString());
+			SOURCE = ByteBuffer.allocate(0);
+			POSITION = 0;
+			LIMIT = 0;
+		}
 	}
 	
-	// Creates the list of reserved words.
-	private List<String> CreateReservedWords()
+	// Read provided file and prepare READER global. 
+	private void ReadSourceFile(File theFileToRead) throws IOException
 	{
-		return Arrays.asList("program", "is", "begin", "end", "global", "procedure",
-				"in","out","inout","integer","float","bool","char","string","if",
-				"else","then","true","false","not","return","for", 
-				"putbool","putinteger","putfloat","putstring","putchar",
-				"getbool","getinteger","getfloat","getstring","getchar");
+		// Initialize Input Stream.
+		InputStream theInputStream = null;
+		
+		try
+		{
+			theInputStream = new FileInputStream(theFileToRead);
+		} 
+		catch (FileNotFoundException e)
+		{
+			System.out.println("Failed to find file. Exception code: " + e.toString());
+			return;
+		}
+		
+		// Generate buffer for read efficiency.
+        Reader theReader = new InputStreamReader(theInputStream);
+        Reader theBuffer = new BufferedReader(theReader);
+        READER = new PushbackReader(theBuffer);
 	}
 }
@@ -0,0 +1,339 @@
+package classes;
+
+import java.util.Arrays;
+
+import objects.TokenType;
+
+// Character class and state transition tables driving the lexical analysis in Scan.
+public final class ScanTable
+{
+	// Character classes.
+	public static final byte CLASS_OTHER = 0;
+	public static final byte CLASS_LETTER = 1;
+	public static final byte CLASS_DIGIT = 2;
+	public static final byte CLASS_UNDERSCORE = 3;
+	public static final byte CLASS_SPACE = 4;
+	public static final byte CLASS_BLANK = 5;
+	public static final byte CLASS_NEWLINE = 6;
+	public static final byte CLASS_QUOTE = 7;
+	public static final byte CLASS_DOUBLE_QUOTE = 8;
+	public static final byte CLASS_PERIOD = 9;
+	public static final byte CLASS_COMMA = 10;
+	public static final byte CLASS_SEMICOLON = 11;
+	public static final byte CLASS_COLON = 12;
+	public static final byte CLASS_STAR = 13;
+	public static final byte CLASS_SLASH = 14;
+	public static final byte CLASS_EQUALS = 15;
+	public static final byte CLASS_BANG = 16;
+	public static final byte CLASS_LESS = 17;
+	public static final byte CLASS_GREATER = 18;
+	public static final byte CLASS_PLUS = 19;
+	public static final byte CLASS_MINUS = 20;
+	public static final byte CLASS_AMPERSAND = 21;
+	public static final byte CLASS_PIPE = 22;
+	public static final byte CLASS_LEFT_BRACKET = 23;
+	public static final byte CLASS_RIGHT_BRACKET = 24;
+	public static final byte CLASS_LEFT_PARENTHESIS = 25;
+	public static final byte CLASS_RIGHT_PARENTHESIS = 26;
+	public static final byte CLASS_END = 27;
+	public static final int CLASS_COUNT = 28;
+	
+	// Lexer states.
+	public static final byte STOP = -1;
+	public static final byte START = 0;
+	public static final byte IDENTIFIER = 1;
+	public static final byte INTEGER_NUMBER = 2;
+	public static final byte FLOAT_NUMBER = 3;
+	public static final byte BAD_NUMBER = 4;
+	public static final byte CHAR_OPEN = 5;
+	public static final byte CHAR_DONE = 6;
+	public static final byte STRING_OPEN = 7;
+	public static final byte STRING_DONE = 8;
+	public static final byte STRING_ERROR = 9;
+	public static final byte STRING_ERROR_DONE = 10;
+	public static final byte STAR = 11;
+	public static final byte STAR_SLASH = 12;
+	public static final byte COLON = 13;
+	public static final byte COLON_EQUALS = 14;
+	public static final byte BANG = 15;
+	public static final byte BANG_EQUALS = 16;
+	public static final byte EQUALS = 17;
+	public static final byte EQUALS_EQUALS = 18;
+	public static final byte LESS = 19;
+	public static final byte LESS_EQUALS = 20;
+	public static final byte GREATER = 21;
+	public static final byte GREATER_EQUALS = 22;
+	public static final byte SLASH = 23;
+	public static final byte LINE_COMMENT = 24;
+	public static final byte BLOCK_COMMENT = 25;
+	public static final byte PLUS = 26;
+	public static final byte MINUS = 27;
+	public static final byte COMMA = 28;
+	public static final byte AMPERSAND = 29;
+	public static final byte PIPE = 30;
+	public static final byte SEMICOLON = 31;
+	public static final byte LEFT_BRACKET = 32;
+	public static final byte RIGHT_BRACKET = 33;
+	public static final byte LEFT_PARENTHESIS = 34;
+	public static final byte RIGHT_PARENTHESIS = 35;
+	public static final byte PERIOD = 36;
+	public static final int STATE_COUNT = 37;
+	
+	// Character class for each ASCII character. Anything else is CLASS_OTHER.
+	public static final byte[] CHARACTER_CLASSES = new byte[128];
+	
+	// Next state for a [state][character class] pair, or STOP when the token ends before the character.
+	public static final byte[][] TRANSITIONS = new byte[STATE_COUNT][CLASS_COUNT];
+	
+	// Token type produced when scanning stops in a state. Null for START (illegal character).
+	public static final TokenType[] ACCEPTS = new TokenType[STATE_COUNT];
+	
+	// States that complete a token without looking at the following character.
+	public static final boolean[] TERMINAL = new boolean[STATE_COUNT];
+	
+	// Shared token value for states whose token always has the same spelling. Null for everything else.
+	public static final String[] SPELLINGS = new String[STATE_COUNT];
+	
+	// Shared token value for token types with a single spelling, indexed by ordinal.
+	private static final String[] TYPE_SPELLINGS = new String[TokenType.values().length];
+	
+	static
+	{
+		CreateCharacterClasses();
+		CreateTransitions();
+		CreateAccepts();
+		CreateSpellings();
+	}
+	
+	// Prevent instantiation.
+	private ScanTable()
+	{
+	}
+	
+	// Returns the shared spelling of a token type, or null when its tokens can be spelled differently.
+	public static String SpellingOf(TokenType aTokenType)
+	{
+		return TYPE_SPELLINGS[aTokenType.ordinal()];
+	}
+	
+	// Returns the character class of a character read from the source, or CLASS_END for -1.
+	public static byte ClassOf(int aCharacter)
+	{
+		if(aCharacter < 0)
+			return CLASS_END;
+		if(aCharacter < 128)
+			return CHARACTER_CLASSES[aCharacter];
+		return CLASS_OTHER;
+	}
+	
+	// Fills the character class table.
+	private static void CreateCharacterClasses()
+	{
+		for(char c = 'a'; c <= 'z'; c++)
+			CHARACTER_CLASSES[c] = CLASS_LETTER;
+		for(char c = 'A'; c <= 'Z'; c++)
+			CHARACTER_CLASSES[c] = CLASS_LETTER;
+		for(char c = '0'; c <= '9'; c++)
+			CHARACTER_CLASSES[c] = CLASS_DIGIT;
+		
+		CHARACTER_CLASSES['_'] = CLASS_UNDERSCORE;
+		CHARACTER_CLASSES[' '] = CLASS_SPACE;
+		CHARACTER_CLASSES['\t'] = CLASS_BLANK;
+		CHARACTER_CLASSES['\r'] = CLASS_BLANK;
+		CHARACTER_CLASSES['\n'] = CLASS_NEWLINE;
+		CHARACTER_CLASSES['\''] = CLASS_QUOTE;
+		CHARACTER_CLASSES['"'] = CLASS_DOUBLE_QUOTE;
+		CHARACTER_CLASSES['.'] = CLASS_PERIOD;
+		CHARACTER_CLASSES[','] = CLASS_COMMA;
+		CHARACTER_CLASSES[';'] = CLASS_SEMICOLON;
+		CHARACTER_CLASSES[':'] = CLASS_COLON;
+		CHARACTER_CLASSES['*'] = CLASS_STAR;
+		CHARACTER_CLASSES['/'] = CLASS_SLASH;
+		CHARACTER_CLASSES['='] = CLASS_EQUALS;
+		CHARACTER_CLASSES['!'] = CLASS_BANG;
+		CHARACTER_CLASSES['<'] = CLASS_LESS;
+		CHARACTER_CLASSES['>'] = CLASS_GREATER;
+		CHARACTER_CLASSES['+'] = CLASS_PLUS;
+		CHARACTER_CLASSES['-'] = CLASS_MINUS;
+		CHARACTER_CLASSES['&'] = CLASS_AMPERSAND;
+		CHARACTER_CLASSES['|'] = CLASS_PIPE;
+		CHARACTER_CLASSES['['] = CLASS_LEFT_BRACKET;
+		CHARACTER_CLASSES[']'] = CLASS_RIGHT_BRACKET;
+		CHARACTER_CLASSES['('] = CLASS_LEFT_PARENTHESIS;
+		CHARACTER_CLASSES[')'] = CLASS_RIGHT_PARENTHESIS;
+	}
+	
+	// Fills the state transition table.
+	private static void CreateTransitions()
+	{
+		for(byte[] theRow : TRANSITIONS)
+			Arrays.fill(theRow, STOP);
+		
+		// Single character tokens and token prefixes.
+		TRANSITIONS[START][CLASS_LETTER] = IDENTIFIER;
+		TRANSITIONS[START][CLASS_DIGIT] = INTEGER_NUMBER;
+		TRANSITIONS[START][CLASS_QUOTE] = CHAR_OPEN;
+		TRANSITIONS[START][CLASS_DOUBLE_QUOTE] = STRING_OPEN;
+		TRANSITIONS[START][CLASS_STAR] = STAR;
+		TRANSITIONS[START][CLASS_COLON] = COLON;
+		TRANSITIONS[START][CLASS_BANG] = BANG;
+		TRANSITIONS[START][CLASS_EQUALS] = EQUALS;
+		TRANSITIONS[START][CLASS_LESS] = LESS;
+		TRANSITIONS[START][CLASS_GREATER] = GREATER;
+		TRANSITIONS[START][CLASS_SLASH] = SLASH;
+		TRANSITIONS[START][CLASS_PLUS] = PLUS;
+		TRANSITIONS[START][CLASS_MINUS] = MINUS;
+		TRANSITIONS[START][CLASS_COMMA] = COMMA;
+		TRANSITIONS[START][CLASS_AMPERSAND] = AMPERSAND;
+		TRANSITIONS[START][CLASS_PIPE] = PIPE;
+		TRANSITIONS[START][CLASS_SEMICOLON] = SEMICOLON;
+		TRANSITIONS[START][CLASS_LEFT_BRACKET] = LEFT_BRACKET;
+		TRANSITIONS[START][CLASS_RIGHT_BRACKET] = RIGHT_BRACKET;
+		TRANSITIONS[START][CLASS_LEFT_PARENTHESIS] = LEFT_PARENTHESIS;
+		TRANSITIONS[START][CLASS_RIGHT_PARENTHESIS] = RIGHT_PARENTHESIS;
+		TRANSITIONS[START][CLASS_PERIOD] = PERIOD;
+		
+		// Identifiers continue with letters, digits and underscores.
+		TRANSITIONS[IDENTIFIER][CLASS_LETTER] = IDENTIFIER;
+		TRANSITIONS[IDENTIFIER][CLASS_DIGIT] = IDENTIFIER;
+		TRANSITIONS[IDENTIFIER][CLASS_UNDERSCORE] = IDENTIFIER;
+		
+		// Numbers allow underscores and a single period. A second period makes the number invalid.
+		TRANSITIONS[INTEGER_NUMBER][CLASS_DIGIT] = INTEGER_NUMBER;
+		TRANSITIONS[INTEGER_NUMBER][CLASS_UNDERSCORE] = INTEGER_NUMBER;
+		TRANSITIONS[INTEGER_NUMBER][CLASS_PERIOD] = FLOAT_NUMBER;
+		TRANSITIONS[FLOAT_NUMBER][CLASS_DIGIT] = FLOAT_NUMBER;
+		TRANSITIONS[FLOAT_NUMBER][CLASS_UNDERSCORE] = FLOAT_NUMBER;
+		TRANSITIONS[FLOAT_NUMBER][CLASS_PERIOD] = BAD_NUMBER;
+		TRANSITIONS[BAD_NUMBER][CLASS_DIGIT] = BAD_NUMBER;
+		TRANSITIONS[BAD_NUMBER][CLASS_UNDERSCORE] = BAD_NUMBER;
+		TRANSITIONS[BAD_NUMBER][CLASS_PERIOD] = BAD_NUMBER;
+		
+		// Char literals stop quietly on the first illegal character.
+		SetLiteralTransitions(CHAR_OPEN, CHAR_OPEN);
+		TRANSITIONS[CHAR_OPEN][CLASS_DOUBLE_QUOTE] = CHAR_OPEN;
+		TRANSITIONS[CHAR_OPEN][CLASS_QUOTE] = CHAR_DONE;
+		
+		// String literals turn into an error running to the closing quote or end of line on an illegal character.
+		for(int theClass = 0; theClass < CLASS_END; theClass++)
+		{
+			TRANSITIONS[STRING_OPEN][theClass] = STRING_ERROR;
+			TRANSITIONS[STRING_ERROR][theClass] = STRING_ERROR;
+		}
+		SetLiteralTransitions(STRING_OPEN, STRING_OPEN);
+		TRANSITIONS[STRING_OPEN][CLASS_QUOTE] = STRING_OPEN;
+		TRANSITIONS[STRING_OPEN][CLASS_DOUBLE_QUOTE] = STRING_DONE;
+		TRANSITIONS[STRING_OPEN][CLASS_NEWLINE] = STRING_ERROR_DONE;
+		TRANSITIONS[STRING_ERROR][CLASS_DOUBLE_QUOTE] = STRING_ERROR_DONE;
+		TRANSITIONS[STRING_ERROR][CLASS_NEWLINE] = STRING_ERROR_DONE;
+		
+		// Two character operators.
+		TRANSITIONS[STAR][CLASS_SLASH] = STAR_SLASH;
+		TRANSITIONS[COLON][CLASS_EQUALS] = COLON_EQUALS;
+		TRANSITIONS[BANG][CLASS_EQUALS] = BANG_EQUALS;
+		TRANSITIONS[EQUALS][CLASS_EQUALS] = EQUALS_EQUALS;
+		TRANSITIONS[LESS][CLASS_EQUALS] = LESS_EQUALS;
+		TRANSITIONS[GREATER][CLASS_EQUALS] = GREATER_EQUALS;
+		
+		// Comment openers. Comment bodies are consumed by Scan.
+		TRANSITIONS[SLASH][CLASS_SLASH] = LINE_COMMENT;
+		TRANSITIONS[SLASH][CLASS_STAR] = BLOCK_COMMENT;
+	}
+	
+	// Moves a char or string state to the given state on the characters legal in both literals.
+	private static void SetLiteralTransitions(byte aState, byte aNextState)
+	{
+		TRANSITIONS[aState][CLASS_LETTER] = aNextState;
+		TRANSITIONS[aState][CLASS_DIGIT] = aNextState;
+		TRANSITIONS[aState][CLASS_UNDERSCORE] = aNextState;
+		TRANSITIONS[aState][CLASS_SPACE] = aNextState;
+		TRANSITIONS[aState][CLASS_SEMICOLON] = aNextState;
+		TRANSITIONS[aState][CLASS_COLON] = aNextState;
+		TRANSITIONS[aState][CLASS_PERIOD] = aNextState;
+		TRANSITIONS[aState][CLASS_COMMA] = aNextState;
+	}
+	
+	// Fills the accepted token type and terminal flag of each state.
+	private static void CreateAccepts()
+	{
+		ACCEPTS[IDENTIFIER] = TokenType.IDENTITY;
+		ACCEPTS[INTEGER_NUMBER] = TokenType.INTEGER;
+		ACCEPTS[FLOAT_NUMBER] = TokenType.FLOAT;
+		ACCEPTS[BAD_NUMBER] = TokenType.ERROR;
+		ACCEPTS[CHAR_OPEN] = TokenType.CHAR;
+		ACCEPTS[STRING_OPEN] = TokenType.ERROR;
+		ACCEPTS[STRING_ERROR] = TokenType.ERROR;
+		ACCEPTS[STAR] = TokenType.MULTIPLY;
+		ACCEPTS[COLON] = TokenType.COLON;
+		ACCEPTS[BANG] = TokenType.ERROR;
+		ACCEPTS[EQUALS] = TokenType.ERROR;
+		ACCEPTS[LESS] = TokenType.LESS_THAN;
+		ACCEPTS[GREATER] = TokenType.GREATER_THAN;
+		ACCEPTS[SLASH] = TokenType.DIVIDE;
+		
+		SetTerminal(CHAR_DONE, TokenType.CHAR);
+		SetTerminal(STRING_DONE, TokenType.STRING);
+		SetTerminal(STRING_ERROR_DONE, TokenType.ERROR);
+		SetTerminal(STAR_SLASH, TokenType.ERROR);
+		SetTerminal(COLON_EQUALS, TokenType.ASSIGN);
+		SetTerminal(BANG_EQUALS, TokenType.NOT_EQUIVALENT);
+		SetTerminal(EQUALS_EQUALS, TokenType.EQUIVALENT);
+		SetTerminal(LESS_EQUALS, TokenType.LESS_THAN_EQ);
+		SetTerminal(GREATER_EQUALS, TokenType.GREATER_THAN_EQ);
+		SetTerminal(LINE_COMMENT, TokenType.COMMENT);
+		SetTerminal(BLOCK_COMMENT, TokenType.START_BLOCK_COMMENT);
+		SetTerminal(PLUS, TokenType.PLUS);
+		SetTerminal(MINUS, TokenType.MINUS);
+		SetTerminal(COMMA, TokenType.COMMA);
+		SetTerminal(AMPERSAND, TokenType.AND);
+		SetTerminal(PIPE, TokenType.OR);
+		SetTerminal(SEMICOLON, TokenType.SEMICOLON);
+		SetTerminal(LEFT_BRACKET, TokenType.LEFT_BRACKET);
+		SetTerminal(RIGHT_BRACKET, TokenType.RIGHT_BRACKET);
+		SetTerminal(LEFT_PARENTHESIS, TokenType.LEFT_PARENTHESIS);
+		SetTerminal(RIGHT_PARENTHESIS, TokenType.RIGHT_PARENTHESIS);
+		SetTerminal(PERIOD, TokenType.PERIOD);
+	}
+	
+	// Fills the shared spelling of each fixed operator and separator state.
+	private static void CreateSpellings()
+	{
+		SPELLINGS[STAR] = "*";
+		SPELLINGS[STAR_SLASH] = "*/";
+		SPELLINGS[COLON] = ":";
+		SPELLINGS[COLON_EQUALS] = ":=";
+		SPELLINGS[BANG] = "!";
+		SPELLINGS[BANG_EQUALS] = "!=";
+		SPELLINGS[EQUALS] = "=";
+		SPELLINGS[EQUALS_EQUALS] = "==";
+		SPELLINGS[LESS] = "<";
+		SPELLINGS[LESS_EQUALS] = "<=";
+		SPELLINGS[GREATER] = ">";
+		SPELLINGS[GREATER_EQUALS] = ">=";
+		SPELLINGS[SLASH] = "/";
+		SPELLINGS[PLUS] = "+";
+		SPELLINGS[MINUS] = "-";
+		SPELLINGS[COMMA] = ",";
+		SPELLINGS[AMPERSAND] = "&";
+		SPELLINGS[PIPE] = "|";
+		SPELLINGS[SEMICOLON] = ";";
+		SPELLINGS[LEFT_BRACKET] = "[";
+		SPELLINGS[RIGHT_BRACKET] = "]";
+		SPELLINGS[LEFT_PARENTHESIS] = "(";
+		SPELLINGS[RIGHT_PARENTHESIS] = ")";
+		SPELLINGS[PERIOD] = ".";
+		
+		for(int theState = 0; theState < STATE_COUNT; theState++)
+		{
+			if(SPELLINGS[theState] != null && ACCEPTS[theState] != TokenType.ERROR)
+				TYPE_SPELLINGS[ACCEPTS[theState].ordinal()] = SPELLINGS[theState];
+		}
+	}
+	
+	// Marks a state as completing its token immediately.
+	private static void SetTerminal(byte aState, TokenType aTokenType)
+	{
+		ACCEPTS[aState] = aTokenType;
+		TERMINAL[aState] = true;
+	}
+}
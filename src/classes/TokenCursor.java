@@ -0,0 +1,75 @@
+package classes;
+
+import objects.Token;
+import objects.TokenBuffer;
+import objects.TokenType;
+
+// Walks a TokenBuffer, handing its tokens to the parser in order.
+public class TokenCursor implements TokenSource
+{
+	// Private properties.
+	private TokenBuffer theBuffer;
+	private int theIndex;
+	
+	// Constructor.
+	public TokenCursor(TokenBuffer aBuffer)
+	{
+		this(aBuffer, 0);
+	}
+	
+	// Constructor for a cursor starting at token aIndex.
+	public TokenCursor(TokenBuffer aBuffer, int aIndex)
+	{
+		theBuffer = aBuffer;
+		theIndex = aIndex;
+	}
+	
+	// Moves the cursor so the next token handed out is token aIndex.
+	public void Seek(int aIndex)
+	{
+		theIndex = aIndex;
+	}
+	
+	// Returns the next buffered token, or null past the end.
+	public Token GetToken()
+	{
+		if(theIndex >= theBuffer.getCount())
+			return null;
+		
+		int theToken = theIndex++;
+		TokenType theType = theBuffer.getType(theToken);
+		if(theType == null)
+			return null;
+		
+		// Operators and separators share one spelling per type.
+		CharSequence theValue = ScanTable.SpellingOf(theType);
+		if(theValue == null)
+			theValue = theBuffer.getText(theToken);
+		
+		Token theResult = new Token(theType, theValue, theBuffer.getLine(theToken), theBuffer.getStart(theToken), theBuffer.getLength(theToken));
+		if(theType == TokenType.INTEGER)
+			theResult.IntegerValue = theBuffer.getValue(theToken);
+		else if(theType == TokenType.FLOAT)
+			theResult.FloatValue = theBuffer.getFloatValue(theToken);
+		else if(theType == TokenType.IDENTITY)
+			theResult.NameId = (int) theBuffer.getValue(theToken);
+		
+		return theResult;
+	}
+	
+	// Puts the next aCount tokens in aTokens from aOffset on, and nulls past the end.
+	public void GetTokens(Token[] aTokens, int aOffset, int aCount)
+	{
+		int theCount = Math.max(0, Math.min(aCount, theBuffer.getCount() - theIndex));
+		for(int i = 0; i < theCount; i++)
+			aTokens[aOffset + i] = GetToken();
+		for(int i = theCount; i < aCount; i++)
+			aTokens[aOffset + i] = null;
+	}
+	
+	// Returns true once every buffered token has been handed out.
+	public boolean isAtEnd()
+	{
+		return theIndex >= theBuffer.getCount();
+	}
+}
@@ -0,0 +1,92 @@
+package classes;
+
+import java.io.IOException;
+
+import objects.Token;
+
+// Fixed-capacity ring of the tokens ahead of the parser. Tokens are pulled from the source a batch at a time, whenever
+// the parser looks further ahead than the ring holds, so the parser reads tokens from an array instead of calling the
+// scanner for each. Entries are null for an illegal character and at the end, as the source returns them.
+public class TokenLookahead
+{
+	// Default number of tokens held.
+	public static final int DEFAULT_CAPACITY = 64;
+	
+	// Private properties.
+	private TokenSource theSource;
+	private Token[] theTokens;
+	private int theMask;
+	
+	// Slot of the current token, and the number of tokens held from it on.
+	private int theHead;
+	private int theCount;
+	
+	// Constructor.
+	public TokenLookahead(TokenSource aSource)
+	{
+		this(aSource, DEFAULT_CAPACITY);
+	}
+	
+	// Constructor. The capacity is rounded up to a power of two.
+	public TokenLookahead(TokenSource aSource, int aCapacity)
+	{
+		int theCapacity = Integer.highestOneBit(Math.max(aCapacity, 2) - 1) << 1;
+		
+		theSource = aSource;
+		theTokens = new Token[theCapacity];
+		theMask = theCapacity - 1;
+		theHead = 0;
+		theCount = 0;
+	}
+	
+	// Returns the token aOffset tokens after the current one, which is Peek(0). The offset must be under the capacity.
+	public Token Peek(int aOffset) throws IOException
+	{
+		if(aOffset >= theCount)
+			Fill(aOffset);
+		return theTokens[(theHead + aOffset) & theMask];
+	}
+	
+	// Moves past the current token.
+	public void Advance() throws IOException
+	{
+		Advance(1);
+	}
+	
+	// Moves past aCount tokens.
+	public void Advance(int aCount) throws IOException
+	{
+		if(aCount > theCount)
+			Fill(aCount);
+		
+		for(int i = 0; i < aCount; i++)
+			theTokens[(theHead + i) & theMask] = null;
+		theHead = (theHead + aCount) & theMask;
+		theCount -= aCount;
+	}
+	
+	// Forgets the tokens held, for a source that has been moved. The next token read is the source's next token.
+	public void Clear()
+	{
+		for(int i = 0; i < theCount; i++)
+			theTokens[(theHead + i) & theMask] = null;
+		theHead = 0;
+		theCount = 0;
+	}
+	
+	// Fills every free slot from the source. Token aOffset must fit.
+	private void Fill(int aOffset) throws IOException
+	{
+		if(aOffset >= theTokens.length)
+			throw new IllegalArgumentException("Lookahead of " + aOffset + " tokens is past the capacity of " + theTokens.length + ".");
+		
+		// The free slots run from the tail to the end of the array, then from its start to the head.
+		int theTail = (theHead + theCount) & theMask;
+		int theFree = theTokens.length - theCount;
+		int theFirst = Math.min(theFree, theTokens.length - theTail);
+		theSource.GetTokens(theTokens, theTail, theFirst);
+		if(theFirst < theFree)
+			theSource.GetTokens(theTokens, 0, theFree - theFirst);
+		theCount = theTokens.length;
+	}
+}
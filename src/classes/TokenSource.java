@@ -0,0 +1,19 @@
+package classes;
+
+import java.io.IOException;
+
+import objects.Token;
+
+// Supplies tokens to the parser one at a time.
+public interface TokenSource
+{
+	// Returns the next token. Returns null for an illegal character and at the end of the tokens.
+	Token GetToken() throws IOException;
+	
+	// Puts the next aCount tokens in aTokens from aOffset on, as GetToken returns them.
+	default void GetTokens(Token[] aTokens, int aOffset, int aCount) throws IOException
+	{
+		for(int i = 0; i < aCount; i++)
+			aTokens[aOffset + i] = GetToken();
+	}
+}
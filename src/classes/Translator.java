@@ -232,151 +232,24 @@ public class Translator
 	// Returns parameter type IR equivalent from provided token.
 	private String ProvideParameterType(TokenType aToken)
 	{
-		switch(aToken)
-		{
-			case INTEGER: case BOOL: case FALSE: case TRUE:
-				return "i32";
-			case FLOAT:
-				return "float";
-			case CHAR:
-				return "i8";
-			case STRING:
-				return "i8*";
-			default:
-				return null;
-		}
+		return TypeSystem.ValueType(aToken);
 	}
 	
 	// Generates type ending for parameter declarations in IR.
 	private String SetupParameterInIR(TokenType aType, TokenType aReturnType)
 	{
-		StringBuilder theParameter = new StringBuilder();
-		
-		switch(aType)
-		{
-			case INTEGER: case TRUE: case FALSE: case BOOL:
-				if(aReturnType != TokenType.IN)
-					return "i32*, align 8";
-				else
-					return "i32, align 4";
-			case CHAR:
-				if(aReturnType != TokenType.IN)
-					return "i8*, align 8";
-				else
-					return "i8, align 1";
-			case FLOAT:
-				if(aReturnType != TokenType.IN)
-					return "float*, align 8";
-				else
-					return "float, align 4";
-			case STRING:
-				// TODO: Determine how to manage this case...
-				break;
-			default:
-				break;
-		}
-		
-		return theParameter.toString().trim();
+		return TypeSystem.ParameterType(aType, aReturnType);
 	}
 	
 	// Provides LLVM type equivalent from given TokenType of a symbol.
 	private String SetupTypeInIR(Symbol aSymbol)
 	{
-		if(aSymbol.getBoundLower() == null)
-		{
-			// We create a standard value when the symbol is not bound and return it.
-			switch(aSymbol.getType())
-			{
-				case INTEGER: case TRUE: case FALSE: case BOOL:
-					if(aSymbol.isGlobal())
-						return "i32 0, align 4";
-					else
-						return "i32, align 4";
-				case CHAR:
-					if(aSymbol.isGlobal())
-						return "i8 0, align 1";
-					else
-						return "i8, align 1";
-				case FLOAT:
-					if(aSymbol.isGlobal())
-						return "float 0.000000e+00, align 4";
-					else
-						return "float, align 4";
-				case STRING:
-					if(aSymbol.isGlobal())
-						return "i8* null, align 8";
-					else 
-						return "i8*, align 8";
-				default:
-					break;
-			}
-		}
-		else
-		{
-			// Create range of array from bound values.
-			int aRange = Integer.parseInt(aSymbol.getBoundUpper()) - Integer.parseInt(aSymbol.getBoundLower());
-			StringBuilder aReturnString = new StringBuilder();
-			
-			// Build string value of array data type in LLVM. 
-			switch(aSymbol.getType())
-			{
-			case INTEGER: case TRUE: case FALSE: case BOOL:
-				if(aSymbol.isGlobal())
-				{
-					aReturnString.append('[');
-					aReturnString.append(aRange);
-					aReturnString.append(" x i32] zeroinitializer, align 16");
-				}
-				else
-				{
-					aReturnString.append('[');
-					aReturnString.append(aRange);
-					aReturnString.append(" x i32], align 16");
-				}
-				return aReturnString.toString().trim();
-			case CHAR:
-				if(aSymbol.isGlobal())
-				{
-					aReturnString.append('[');
-					aReturnString.append(aRange);
-					aReturnString.append(" x i8] zeroinitializer, align 1");
-				}
-				else
-				{
-					aReturnString.append('[');
-					aReturnString.append(aRange);
-					aReturnString.append(" x i8], align 1");
-				}
-				return aReturnString.toString().trim();
-			case FLOAT:
-				if(aSymbol.isGlobal())
-				{
-					aReturnString.append('[');
-					aReturnString.append(aRange);
-					aReturnString.append(" x float] zeroinitializer, align 16");
-				}
-				else
-				{
-					aReturnString.append('[');
-					aReturnString.append(aRange);
-					aReturnString.append(" x float], align 16");
-				}
-				return aReturnString.toString().trim();
-			case STRING:
-				if(aSymbol.isGlobal())
-				{
-					aReturnString.append("i8** null, align 8");
-				}
-				else
-				{
-					aReturnString.append("i8**, align 8");
-				}
-				return aReturnString.toString().trim();
-			default:
-				break;
-			}
-		}
+		// We create a standard value when the symbol is not bound.
+		if(!aSymbol.hasBounds())
+			return TypeSystem.ScalarType(aSymbol.getType(), aSymbol.isGlobal());
 		
-		return null;
+		// Create range of array from bound values.
+		int aRange = aSymbol.getBoundUpper() - aSymbol.getBoundLower();
+		return TypeSystem.ArrayType(aSymbol.getType(), aRange, aSymbol.isGlobal());
 	}
 }
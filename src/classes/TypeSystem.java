@@ -0,0 +1,120 @@
+package classes;
+
+import objects.TokenType;
+
+// The types of the language in one place: which literals a symbol of each type accepts, and the LLVM type of each.
+// Both are tables indexed by TokenType ordinal, filled once, so a type check is an array load and the IR type strings
+// are built once instead of for every declaration. A symbol's type is a type mark, or the type of the built-in or
+// statement it stands for.
+public final class TypeSystem
+{
+	// How a literal fits a symbol. FIRST_LITERAL fits a condition whose literals must all be of the type of its first.
+	public static final byte INCOMPATIBLE = 0;
+	public static final byte COMPATIBLE = 1;
+	public static final byte COERCED = 2;
+	public static final byte FIRST_LITERAL = 3;
+	
+	private static final int SIZE = TokenType.values().length;
+	
+	// How a literal of each type fits a symbol of each type, at symbol ordinal * SIZE + literal ordinal.
+	private static final byte[] LITERALS = new byte[SIZE * SIZE];
+	
+	// LLVM type of a value of each type, of a local and a global scalar of each type, of an IN and an OUT or INOUT
+	// parameter of each type, and of the elements of a local and a global array of each type. Null where a type has
+	// none.
+	private static final String[] VALUE_TYPES = new String[SIZE];
+	private static final String[] LOCAL_TYPES = new String[SIZE];
+	private static final String[] GLOBAL_TYPES = new String[SIZE];
+	private static final String[] IN_PARAMETER_TYPES = new String[SIZE];
+	private static final String[] OUT_PARAMETER_TYPES = new String[SIZE];
+	private static final String[] LOCAL_ARRAY_TYPES = new String[SIZE];
+	private static final String[] GLOBAL_ARRAY_TYPES = new String[SIZE];
+	
+	static
+	{
+		TokenType[] theIntegerLiterals = {TokenType.INTEGER, TokenType.TRUE, TokenType.FALSE};
+		for(TokenType theLiteral : theIntegerLiterals)
+		{
+			Accept(theLiteral, COMPATIBLE, TokenType.INTEGER, TokenType.BOOL, TokenType.GETINTEGER, TokenType.GETBOOL,
+					TokenType.PUTINTEGER, TokenType.PUTBOOL, TokenType.PROCEDURE, TokenType.IF, TokenType.FOR);
+		}
+		Accept(TokenType.INTEGER, COERCED, TokenType.FLOAT);
+		Accept(TokenType.FLOAT, COMPATIBLE, TokenType.FLOAT, TokenType.GETFLOAT, TokenType.PUTFLOAT, TokenType.PROCEDURE);
+		Accept(TokenType.CHAR, COMPATIBLE, TokenType.CHAR, TokenType.GETCHAR, TokenType.PUTCHAR, TokenType.PROCEDURE);
+		Accept(TokenType.CHAR, FIRST_LITERAL, TokenType.IF, TokenType.FOR);
+		Accept(TokenType.STRING, COMPATIBLE, TokenType.STRING, TokenType.GETSTRING, TokenType.PUTSTRING, TokenType.PROCEDURE);
+		Accept(TokenType.STRING, FIRST_LITERAL, TokenType.IF, TokenType.FOR);
+		
+		// Booleans are held as i32, like integers.
+		for(TokenType theType : theIntegerLiterals)
+			Describe(theType, "i32", "i32, align 4", "i32 0, align 4", "i32*, align 8", "i32, align 4", " x i32], align 16", " x i32] zeroinitializer, align 16");
+		Describe(TokenType.BOOL, "i32", "i32, align 4", "i32 0, align 4", "i32*, align 8", "i32, align 4", " x i32], align 16", " x i32] zeroinitializer, align 16");
+		Describe(TokenType.FLOAT, "float", "float, align 4", "float 0.000000e+00, align 4", "float*, align 8", "float, align 4", " x float], align 16", " x float] zeroinitializer, align 16");
+		Describe(TokenType.CHAR, "i8", "i8, align 1", "i8 0, align 1", "i8*, align 8", "i8, align 1", " x i8], align 1", " x i8] zeroinitializer, align 1");
+		
+		// String parameters have no declaration yet, and a string array is declared as a pointer, whatever its range.
+		Describe(TokenType.STRING, "i8*", "i8*, align 8", "i8* null, align 8", "", "", null, null);
+	}
+	
+	// Prevent instantiation.
+	private TypeSystem()
+	{
+	}
+	
+	// Returns how a literal of type aLiteral fits a symbol of type aSymbolType, which is INCOMPATIBLE if the symbol has
+	// no type.
+	public static byte LiteralFit(TokenType aSymbolType, TokenType aLiteral)
+	{
+		return aSymbolType == null ? INCOMPATIBLE : LITERALS[aSymbolType.ordinal() * SIZE + aLiteral.ordinal()];
+	}
+	
+	// Returns the LLVM type of a value of aType, or null.
+	public static String ValueType(TokenType aType)
+	{
+		return VALUE_TYPES[aType.ordinal()];
+	}
+	
+	// Returns the LLVM type, with its initializer if global, of a scalar of aType, or null.
+	public static String ScalarType(TokenType aType, boolean aGlobal)
+	{
+		return (aGlobal ? GLOBAL_TYPES : LOCAL_TYPES)[aType.ordinal()];
+	}
+	
+	// Returns the LLVM type, with its initializer if global, of an array of aType of aRange elements, or null.
+	public static String ArrayType(TokenType aType, int aRange, boolean aGlobal)
+	{
+		if(aType == TokenType.STRING)
+			return aGlobal ? "i8** null, align 8" : "i8**, align 8";
+		
+		String theElements = (aGlobal ? GLOBAL_ARRAY_TYPES : LOCAL_ARRAY_TYPES)[aType.ordinal()];
+		return theElements == null ? null : "[" + aRange + theElements;
+	}
+	
+	// Returns the LLVM type of the local holding a parameter of aType passed aMode, which is empty for a type without
+	// one.
+	public static String ParameterType(TokenType aType, TokenType aMode)
+	{
+		String theType = (aMode != TokenType.IN ? OUT_PARAMETER_TYPES : IN_PARAMETER_TYPES)[aType.ordinal()];
+		return theType == null ? "" : theType;
+	}
+	
+	// Records that a literal of type aLiteral fits symbols of aSymbolTypes as aFit.
+	private static void Accept(TokenType aLiteral, byte aFit, TokenType... aSymbolTypes)
+	{
+		for(TokenType theType : aSymbolTypes)
+			LITERALS[theType.ordinal() * SIZE + aLiteral.ordinal()] = aFit;
+	}
+	
+	// Records the LLVM types of aType.
+	private static void Describe(TokenType aType, String aValue, String aLocal, String aGlobal, String aOutParameter,
+			String aInParameter, String aLocalArray, String aGlobalArray)
+	{
+		VALUE_TYPES[aType.ordinal()] = aValue;
+		LOCAL_TYPES[aType.ordinal()] = aLocal;
+		GLOBAL_TYPES[aType.ordinal()] = aGlobal;
+		OUT_PARAMETER_TYPES[aType.ordinal()] = aOutParameter;
+		IN_PARAMETER_TYPES[aType.ordinal()] = aInParameter;
+		LOCAL_ARRAY_TYPES[aType.ordinal()] = aLocalArray;
+		GLOBAL_ARRAY_TYPES[aType.ordinal()] = aGlobalArray;
+	}
+}
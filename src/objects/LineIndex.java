@@ -0,0 +1,103 @@
+package objects;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Maps source offsets to lines and columns. The newline offsets are collected in one pass over the source,
+// made the first time a position is looked up.
+public class LineIndex
+{
+	// Every byte of a word set to '\n', and the constants for finding a zero byte in a word.
+	private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+	private static final long LOW_BITS = 0x0101010101010101L;
+	private static final long HIGH_BITS = 0x8080808080808080L;
+	
+	// Private properties.
+	ByteBuffer Source;
+	int[] NewlineOffsets;
+	int NewlineCount;
+	
+	// Constructor.
+	public LineIndex(ByteBuffer aSource)
+	{
+		Source = aSource;
+		NewlineOffsets = null;
+		NewlineCount = 0;
+	}
+	
+	// Returns the line holding a source offset, counting from one.
+	public int getLine(int aOffset)
+	{
+		Build();
+		
+		// Count the newlines before the offset.
+		int theLow = 0;
+		int theHigh = NewlineCount;
+		while(theLow < theHigh)
+		{
+			int theMiddle = (theLow + theHigh) >>> 1;
+			if(NewlineOffsets[theMiddle] < aOffset)
+				theLow = theMiddle + 1;
+			else
+				theHigh = theMiddle;
+		}
+		
+		return theLow + 1;
+	}
+	
+	// Returns the column of a source offset within its line, counting from one.
+	public int getColumn(int aOffset)
+	{
+		int theLine = getLine(aOffset);
+		int theLineStart = theLine == 1 ? 0 : NewlineOffsets[theLine - 2] + 1;
+		return aOffset - theLineStart + 1;
+	}
+	
+	public int getLineCount()
+	{
+		Build();
+		return NewlineCount + 1;
+	}
+	
+	// Collects the offset of every newline, testing eight bytes at a time.
+	private void Build()
+	{
+		if(NewlineOffsets != null)
+			return;
+		
+		int[] theOffsets = new int[64];
+		int theCount = 0;
+		int theLimit = Source.limit();
+		int i = 0;
+		
+		for(; i + 8 <= theLimit; i += 8)
+		{
+			long theWord = Source.getLong(i) ^ NEWLINES;
+			if(((theWord - LOW_BITS) & ~theWord & HIGH_BITS) == 0)
+				continue;
+			
+			for(int j = i; j < i + 8; j++)
+			{
+				if(Source.get(j) == '\n')
+				{
+					if(theCount == theOffsets.length)
+						theOffsets = Arrays.copyOf(theOffsets, theCount * 2);
+					theOffsets[theCount++] = j;
+				}
+			}
+		}
+		
+		for(; i < theLimit; i++)
+		{
+			if(Source.get(i) == '\n')
+			{
+				if(theCount == theOffsets.length)
+					theOffsets = Arrays.copyOf(theOffsets, theCount * 2);
+				theOffsets[theCount++] = i;
+			}
+		}
+		
+		NewlineCount = theCount;
+		NewlineOffsets = theOffsets;
+	}
+}
@@ -0,0 +1,77 @@
+package objects;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Gives every identifier an int id, the same for every spelling that differs only in case, so the symbol table can
+// compare names without building or folding strings. A table belongs to one compilation, shared by its scanners and
+// symbol tables, so its names are dropped with it. Only the lower case names of the token types, which keywords and
+// built-in procedures are spelled with, have the same ids in every table: the ordinals of their types.
+public class NameTable
+{
+	// Lower case name of each token type, by ordinal, interned first by every table.
+	private static final String[] TYPE_NAMES = new String[TokenType.values().length];
+	
+	static
+	{
+		for(TokenType theType : TokenType.values())
+			TYPE_NAMES[theType.ordinal()] = theType.name().toLowerCase();
+	}
+	
+	// Private properties. Ids of the interned names, and the name of each id.
+	private ConcurrentHashMap<String, Integer> theIds;
+	private String[] theNames;
+	private int theCount;
+	
+	// Constructor.
+	public NameTable()
+	{
+		theIds = new ConcurrentHashMap<String, Integer>();
+		theNames = new String[256];
+		theCount = 0;
+		
+		for(String theName : TYPE_NAMES)
+			Add(theName);
+	}
+	
+	// Returns the id of a name. Names are expected in lower case. Safe from several threads.
+	public int Intern(String aName)
+	{
+		Integer theId = theIds.get(aName);
+		return theId != null ? theId : Add(aName);
+	}
+	
+	// Returns the id of a name, or -1 if it was never interned.
+	public int IdOf(String aName)
+	{
+		Integer theId = theIds.get(aName);
+		return theId != null ? theId : -1;
+	}
+	
+	// Returns the id of the lower case name of aType, which is the name of a keyword or built-in procedure of that type.
+	// It is the same in every table.
+	public static int IdOf(TokenType aType)
+	{
+		return aType.ordinal();
+	}
+	
+	// Returns the name of an id.
+	public synchronized String NameOf(int aId)
+	{
+		return theNames[aId];
+	}
+	
+	// Interns a name not met before. Two token types never share a name, so each type name takes its ordinal.
+	private synchronized int Add(String aName)
+	{
+		Integer theId = theIds.get(aName);
+		if(theId != null)
+			return theId;
+		
+		if(theCount == theNames.length)
+			theNames = Arrays.copyOf(theNames, theCount * 2);
+		theNames[theCount] = aName;
+		theIds.put(aName, theCount);
+		return theCount++;
+	}
+}
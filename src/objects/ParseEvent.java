@@ -0,0 +1,41 @@
+package objects;
+
+// Enum for the constructs the parser reports as it recognizes them, with the line printed for each.
+public enum ParseEvent
+{
+	// Program and procedure structure.
+	PROGRAM_HEADER("Program Header!"),
+	GLOBAL("Global!"),
+	DECLARATION("Declaration!"),
+	PROCEDURE_DECLARATION("Procedure Declaration!"),
+	PARAMETER_LIST("Parameter list!"),
+	BOUND("Bound!"),
+	BEGIN("Begin!"),
+	END_PROCEDURE("End procedure!"),
+	END_PROGRAM("End program!"),
+	
+	// Statements.
+	STATEMENT("Statement!"),
+	LOOP_STATEMENT("LOOP STATEMENT"),
+	RETURN("Return!"),
+	IF("If!"),
+	FOR("For!"),
+	
+	// Type checks of procedure call arguments.
+	ARGUMENT_TYPES_MATCH("Argument types match."),
+	RAW_TYPES_MATCH("Raw data types match.");
+	
+	// Private properties.
+	private final String Message;
+	
+	// Constructor.
+	ParseEvent(String aMessage)
+	{
+		Message = aMessage;
+	}
+	
+	public String getMessage()
+	{
+		return Message;
+	}
+}
@@ -0,0 +1,56 @@
+package objects;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// The built-in procedures, shared by every symbol table in the process. Each is declared once, in the scope that
+// encloses every program, and never changes, so tables look them up here after their global scope instead of adding
+// them for each program. A built-in is named by a keyword, so it is found by its token type, whose ordinal is also
+// the id of its name in every NameTable. Built-ins are immutable: their parameter lists are unmodifiable, and their
+// setters throw UnsupportedOperationException, so no compilation can change what the others see.
+public class Prelude
+{
+	// The built-in of each token type, by ordinal, or null.
+	private static final Symbol[] BUILT_INS = new Symbol[TokenType.values().length];
+	
+	static
+	{
+		Add(TokenType.GETBOOL, TokenType.BOOL, TokenType.OUT);
+		Add(TokenType.GETINTEGER, TokenType.INTEGER, TokenType.OUT);
+		Add(TokenType.GETFLOAT, TokenType.FLOAT, TokenType.OUT);
+		Add(TokenType.GETSTRING, TokenType.STRING, TokenType.OUT);
+		Add(TokenType.GETCHAR, TokenType.CHAR, TokenType.OUT);
+		
+		Add(TokenType.PUTBOOL, TokenType.BOOL, TokenType.IN);
+		Add(TokenType.PUTINTEGER, TokenType.INTEGER, TokenType.IN);
+		Add(TokenType.PUTFLOAT, TokenType.FLOAT, TokenType.IN);
+		Add(TokenType.PUTSTRING, TokenType.STRING, TokenType.IN);
+		Add(TokenType.PUTCHAR, TokenType.CHAR, TokenType.IN);
+	}
+	
+	// Returns the built-in procedure of aType, or null.
+	public static Symbol Find(TokenType aType)
+	{
+		return BUILT_INS[aType.ordinal()];
+	}
+	
+	// Returns the built-in procedure named by the name with id aNameId, or null.
+	public static Symbol Find(int aNameId)
+	{
+		return aNameId >= 0 && aNameId < BUILT_INS.length ? BUILT_INS[aNameId] : null;
+	}
+	
+	// Declares the built-in of aType, taking one parameter 'val' of aParameterType passed aMode.
+	private static void Add(TokenType aType, TokenType aParameterType, TokenType aMode)
+	{
+		List<String> theParameters = Collections.unmodifiableList(Arrays.asList("val"));
+		List<TokenType> theTypes = Collections.unmodifiableList(Arrays.asList(aParameterType));
+		List<TokenType> theModes = Collections.unmodifiableList(Arrays.asList(aMode));
+		
+		Symbol theSymbol = new Symbol(aType, 0, theParameters, theTypes, theModes, true);
+		theSymbol.Order = -1;
+		theSymbol.ReadOnly = true;
+		BUILT_INS[aType.ordinal()] = theSymbol;
+	}
+}
@@ -0,0 +1,62 @@
+package objects;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Node of the symbol table's scope tree. A node stands for one dotted scope key, such as 'program.procedure.name',
+// and holds the symbol declared under that key, if any. The table finds the keys one name longer by the node's id and
+// their last name in a ScopeMap.
+public class Scope
+{
+	// Package properties, read and set by SymbolTable.
+	Scope Parent;
+	String Name;
+	int Id;
+	Symbol Declaration;
+	
+	// The key of the node, built when first asked for.
+	String Key;
+	
+	// Parameter names with upper case letters declared here. Their keys never match a lookup, which is in lower case,
+	// so they only keep a parameter from being declared twice.
+	Set<String> HiddenNames;
+	
+	// Constructor for the root, whose key is empty.
+	public Scope()
+	{
+		this(null, null, 0);
+	}
+	
+	// Constructor for a child named aName of aParent, with an id unique in its table.
+	public Scope(Scope aParent, String aName, int aId)
+	{
+		Parent = aParent;
+		Name = aName;
+		Id = aId;
+		Declaration = null;
+		Key = null;
+		HiddenNames = null;
+	}
+	
+	// Adds a hidden parameter name. Returns false if it was declared here before.
+	public boolean AddHiddenName(String aName)
+	{
+		if(HiddenNames == null)
+			HiddenNames = new HashSet<String>();
+		return HiddenNames.add(aName);
+	}
+	
+	// Returns the id of the node, by which the table finds its children.
+	public int getId()
+	{
+		return Id;
+	}
+	
+	// Returns the dotted key of the node, empty for the root.
+	public String getKey()
+	{
+		if(Key == null)
+			Key = Parent == null ? "" : Parent.Parent == null ? Name : Parent.getKey() + "." + Name;
+		return Key;
+	}
+}
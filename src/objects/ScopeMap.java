@@ -0,0 +1,112 @@
+package objects;
+
+import java.util.Arrays;
+
+// Open-addressing map from a scope key, given as the id of its enclosing Scope and the NameTable id of its last name,
+// to the Scope of that key. Both ids are packed into one long, probed linearly in a primitive array, with the scopes
+// in a parallel array, so a lookup hashes and compares a single long whatever the depth of the key.
+public class ScopeMap
+{
+	// Key of an empty slot. Ids are never negative, so no packed key is -1.
+	private static final long EMPTY = -1L;
+	
+	// Private properties.
+	private long[] theKeys;
+	private Scope[] theScopes;
+	private int theCount;
+	
+	// Constructor.
+	public ScopeMap()
+	{
+		this(256);
+	}
+	
+	// Constructor for a map holding aCapacity scopes before it grows.
+	public ScopeMap(int aCapacity)
+	{
+		int theSize = Integer.highestOneBit(Math.max(aCapacity, 4) * 2 - 1) << 1;
+		theKeys = new long[theSize];
+		Arrays.fill(theKeys, EMPTY);
+		theScopes = new Scope[theSize];
+		theCount = 0;
+	}
+	
+	// Returns the scope named aNameId in the scope with id aScopeId, or null.
+	public Scope Get(int aScopeId, int aNameId)
+	{
+		long theKey = Key(aScopeId, aNameId);
+		int theMask = theKeys.length - 1;
+		int theSlot = Hash(theKey) & theMask;
+		while(theKeys[theSlot] != EMPTY)
+		{
+			if(theKeys[theSlot] == theKey)
+				return theScopes[theSlot];
+			theSlot = (theSlot + 1) & theMask;
+		}
+		return null;
+	}
+	
+	// Puts aScope as the scope named aNameId in the scope with id aScopeId, replacing any there.
+	public void Put(int aScopeId, int aNameId, Scope aScope)
+	{
+		long theKey = Key(aScopeId, aNameId);
+		int theMask = theKeys.length - 1;
+		int theSlot = Hash(theKey) & theMask;
+		while(theKeys[theSlot] != EMPTY)
+		{
+			if(theKeys[theSlot] == theKey)
+			{
+				theScopes[theSlot] = aScope;
+				return;
+			}
+			theSlot = (theSlot + 1) & theMask;
+		}
+		
+		theKeys[theSlot] = theKey;
+		theScopes[theSlot] = aScope;
+		if(++theCount * 2 > theKeys.length)
+			Grow();
+	}
+	
+	public int getCount()
+	{
+		return theCount;
+	}
+	
+	// Packs a scope id and a name id into a key.
+	private static long Key(int aScopeId, int aNameId)
+	{
+		return (long) aScopeId << 32 | (aNameId & 0xFFFFFFFFL);
+	}
+	
+	// Spreads the bits of a key over the low bits used for the slot.
+	private static int Hash(long aKey)
+	{
+		long theHash = aKey * 0x9E3779B97F4A7C15L;
+		return (int) (theHash ^ theHash >>> 32);
+	}
+	
+	// Doubles the arrays.
+	private void Grow()
+	{
+		long[] theKeysBefore = theKeys;
+		Scope[] theScopesBefore = theScopes;
+		
+		theKeys = new long[theKeysBefore.length * 2];
+		Arrays.fill(theKeys, EMPTY);
+		theScopes = new Scope[theKeys.length];
+		
+		int theMask = theKeys.length - 1;
+		for(int i = 0; i < theKeysBefore.length; i++)
+		{
+			if(theKeysBefore[i] == EMPTY)
+				continue;
+			
+			int theSlot = Hash(theKeysBefore[i]) & theMask;
+			while(theKeys[theSlot] != EMPTY)
+				theSlot = (theSlot + 1) & theMask;
+			theKeys[theSlot] = theKeysBefore[i];
+			theScopes[theSlot] = theScopesBefore[i];
+		}
+	}
+}
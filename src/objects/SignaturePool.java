@@ -0,0 +1,69 @@
+package objects;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Symbol signatures, each kept once, so two symbols have equal signatures exactly when they have the same array. A
+// pool belongs to the ProcedureCache whose entries hold its signatures, and keeps only the signatures of the entries
+// kept, so nothing in it outlives the cache. A signature already in the pool is found by packing it into a buffer
+// reused by each thread, without allocating.
+public class SignaturePool
+{
+	// Private properties.
+	private ConcurrentHashMap<ByteBuffer, byte[]> theSignatures;
+	private ThreadLocal<ByteBuffer> theBuffers;
+	
+	// Constructor.
+	public SignaturePool()
+	{
+		theSignatures = new ConcurrentHashMap<ByteBuffer, byte[]>();
+		theBuffers = new ThreadLocal<ByteBuffer>();
+	}
+	
+	// Returns the signature of aSymbol held in the pool, adding it if it is new, or null for no symbol. Safe from
+	// several threads.
+	public byte[] Intern(Symbol aSymbol)
+	{
+		if(aSymbol == null)
+			return null;
+		
+		ByteBuffer theBuffer = theBuffers.get();
+		int theLength = aSymbol.SignatureLength();
+		if(theBuffer == null || theBuffer.capacity() < theLength)
+		{
+			theBuffer = ByteBuffer.allocate(Math.max(64, Integer.highestOneBit(theLength) << 1));
+			theBuffers.set(theBuffer);
+		}
+		
+		theBuffer.clear();
+		aSymbol.PutSignature(theBuffer);
+		theBuffer.flip();
+		
+		byte[] theSignature = theSignatures.get(theBuffer);
+		if(theSignature != null)
+			return theSignature;
+		
+		theSignature = new byte[theLength];
+		theBuffer.get(theSignature);
+		return Keep(theSignature);
+	}
+	
+	// Keeps aSignature, or returns the equal signature kept before.
+	public byte[] Keep(byte[] aSignature)
+	{
+		byte[] theSignature = theSignatures.putIfAbsent(ByteBuffer.wrap(aSignature), aSignature);
+		return theSignature != null ? theSignature : aSignature;
+	}
+	
+	// Drops every signature.
+	public void Clear()
+	{
+		theSignatures.clear();
+	}
+	
+	// Returns the number of signatures kept.
+	public int getCount()
+	{
+		return theSignatures.size();
+	}
+}
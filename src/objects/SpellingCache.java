@@ -0,0 +1,126 @@
+package objects;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// The spellings of identifiers one scanner has met, exactly as written, with the NameTable id of each. A scanner
+// interns each identifier through it, so a name seen again costs a probe of its bytes and no allocation.
+public class SpellingCache
+{
+	// Private properties. The table the ids are from, and the spellings met with the hash and id of each.
+	private NameTable theNames;
+	private String[] theSpellings;
+	private int[] theHashes;
+	private int[] theIds;
+	private int theCount;
+	
+	// Constructor.
+	public SpellingCache(NameTable aNames)
+	{
+		theNames = aNames;
+		theSpellings = new String[64];
+		theHashes = new int[64];
+		theIds = new int[64];
+		theCount = 0;
+	}
+	
+	// Returns the table the ids are from.
+	public NameTable getNames()
+	{
+		return theNames;
+	}
+	
+	// Returns the id of the identifier spelled by aLength bytes of aSource from aStart, in any case.
+	public int InternSpelling(ByteBuffer aSource, int aStart, int aLength)
+	{
+		int theHash = 0;
+		for(int i = 0; i < aLength; i++)
+			theHash = theHash * 31 + (aSource.get(aStart + i) & 0xFF);
+		
+		int theMask = theSpellings.length - 1;
+		int theSlot = theHash & theMask;
+		while(theSpellings[theSlot] != null)
+		{
+			if(theHashes[theSlot] == theHash && IsSpelling(theSpellings[theSlot], aSource, aStart, aLength))
+				return theIds[theSlot];
+			theSlot = (theSlot + 1) & theMask;
+		}
+		
+		byte[] theBytes = new byte[aLength];
+		for(int i = 0; i < aLength; i++)
+			theBytes[i] = aSource.get(aStart + i);
+		return AddSpelling(theSlot, theHash, new String(theBytes, StandardCharsets.ISO_8859_1));
+	}
+	
+	// Returns the id of the identifier spelled by aText, in any case.
+	public int InternSpelling(CharSequence aText)
+	{
+		int theHash = 0;
+		for(int i = 0; i < aText.length(); i++)
+			theHash = theHash * 31 + aText.charAt(i);
+		
+		int theMask = theSpellings.length - 1;
+		int theSlot = theHash & theMask;
+		while(theSpellings[theSlot] != null)
+		{
+			if(theHashes[theSlot] == theHash && theSpellings[theSlot].contentEquals(aText))
+				return theIds[theSlot];
+			theSlot = (theSlot + 1) & theMask;
+		}
+		
+		return AddSpelling(theSlot, theHash, aText.toString());
+	}
+	
+	// Caches the id of a spelling in the empty slot aSlot, growing the cache past half full.
+	private int AddSpelling(int aSlot, int aHash, String aSpelling)
+	{
+		int theId = theNames.Intern(aSpelling.toLowerCase());
+		theSpellings[aSlot] = aSpelling;
+		theHashes[aSlot] = aHash;
+		theIds[aSlot] = theId;
+		
+		if(++theCount * 2 > theSpellings.length)
+			Grow();
+		return theId;
+	}
+	
+	// Doubles the cache.
+	private void Grow()
+	{
+		String[] theSpellingsBefore = theSpellings;
+		int[] theHashesBefore = theHashes;
+		int[] theIdsBefore = theIds;
+		
+		theSpellings = new String[theSpellingsBefore.length * 2];
+		theHashes = new int[theSpellings.length];
+		theIds = new int[theSpellings.length];
+		
+		int theMask = theSpellings.length - 1;
+		for(int i = 0; i < theSpellingsBefore.length; i++)
+		{
+			if(theSpellingsBefore[i] == null)
+				continue;
+			
+			int theSlot = theHashesBefore[i] & theMask;
+			while(theSpellings[theSlot] != null)
+				theSlot = (theSlot + 1) & theMask;
+			theSpellings[theSlot] = theSpellingsBefore[i];
+			theHashes[theSlot] = theHashesBefore[i];
+			theIds[theSlot] = theIdsBefore[i];
+		}
+	}
+	
+	// Returns true if aSpelling is the aLength bytes of aSource from aStart.
+	private static boolean IsSpelling(String aSpelling, ByteBuffer aSource, int aStart, int aLength)
+	{
+		if(aSpelling.length() != aLength)
+			return false;
+		
+		for(int i = 0; i < aLength; i++)
+		{
+			if(aSpelling.charAt(i) != (char) (aSource.get(aStart + i) & 0xFF))
+				return false;
+		}
+		return true;
+	}
+}
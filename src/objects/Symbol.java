@@ -1,22 +1,47 @@
 package objects;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class Symbol
 {
-	// Private variables.
+	// Bits of Bounds. A bound is kept as an int, with a bit for whether it was written and one for whether what was
+	// written, such as a float, is not an int.
+	static final int LOWER = 1;
+	static final int UPPER = 2;
+	static final int LOWER_NOT_INT = 4;
+	static final int UPPER_NOT_INT = 8;
+	
+	// A one element list of each token type, shared by the parameter symbols of that mode.
+	private static final List<List<TokenType>> SINGLE_TYPES = new ArrayList<List<TokenType>>();
+	
+	static
+	{
+		for(TokenType theType : TokenType.values())
+			SINGLE_TYPES.add(Collections.singletonList(theType));
+	}
+	
+	// Package variables, read by SymbolTable and the Prelude.
 	TokenType Type;
 	int LineNumber;
-	String BoundLower;
-	String BoundUpper;
+	int BoundLower;
+	int BoundUpper;
+	byte Bounds;
 	boolean Global;
 	
-	// Procedure specific variables.
+	// Procedure specific variables. A symbol made empty shares empty lists until a parameter is added.
 	List<String> Parameters;
 	List<TokenType> ParameterTypes;
 	List<TokenType> ParameterReturnTypes;
 	
+	// Number of symbols added to the table before this one.
+	int Order;
+	
+	// True for a built-in of the Prelude, which every table shares and no setter may change.
+	boolean ReadOnly;
+	
 	// Empty constructor.
 	public Symbol()
 	{
@@ -25,13 +50,21 @@ public class Symbol
 		LineNumber = -1;
 		Global = false;
 		
-		Parameters = new ArrayList<String>();
-		ParameterTypes = new ArrayList<TokenType>();
-		ParameterReturnTypes = new ArrayList<TokenType>();
+		Parameters = Collections.emptyList();
+		ParameterTypes = Collections.emptyList();
+		ParameterReturnTypes = Collections.emptyList();
 	}
 	
-	// Constructor.
-	public Symbol(TokenType aType, int aLineNumber, String aBoundLower, String aBoundUpper, 
+	// Constructor for a symbol without bounds.
+	public Symbol(TokenType aType, int aLineNumber, 
+			List<String> aParameters, List<TokenType> aParameterTypes, List<TokenType> aParameterReturnTypes,
+			boolean aGlobal)
+	{
+		this(aType, aLineNumber, 0, 0, 0, aParameters, aParameterTypes, aParameterReturnTypes, aGlobal);
+	}
+	
+	// Constructor for bounds already parsed, with aBounds made of the bits above.
+	Symbol(TokenType aType, int aLineNumber, int aBoundLower, int aBoundUpper, int aBounds, 
 			List<String> aParameters, List<TokenType> aParameterTypes, List<TokenType> aParameterReturnTypes,
 			boolean aGlobal)
 	{
@@ -39,12 +72,19 @@ public class Symbol
 		LineNumber = aLineNumber;
 		BoundLower = aBoundLower;
 		BoundUpper = aBoundUpper;
+		Bounds = (byte) aBounds;
 		Global = aGlobal;
 		
 		Parameters = aParameters;
 		ParameterTypes = aParameterTypes;
 		ParameterReturnTypes = aParameterReturnTypes;
 	}
+	
+	// Returns the shared list holding only aType.
+	public static List<TokenType> SingleType(TokenType aType)
+	{
+		return SINGLE_TYPES.get(aType.ordinal());
+	}
 
 	public TokenType getType()
 	{
@@ -53,6 +93,7 @@ public class Symbol
 
 	public void setType(TokenType type)
 	{
+		CheckWritable();
 		Type = type;
 	}
 
@@ -63,27 +104,49 @@ public class Symbol
 
 	public void setLineNumber(int lineNumber)
 	{
+		CheckWritable();
 		LineNumber = lineNumber;
 	}
 
-	public String getBoundLower()
+	// Returns true if a lower bound was written, which makes the symbol an array.
+	public boolean hasBounds()
+	{
+		return (Bounds & LOWER) != 0;
+	}
+
+	// Returns the lower bound. Throws NumberFormatException if none was written or it is not an int.
+	public int getBoundLower()
 	{
-		return BoundLower;
+		return Bound(BoundLower, LOWER, LOWER_NOT_INT);
 	}
 
-	public void setBoundLower(String boundLower)
+	// Sets the lower bound from an integer or float literal, negated if aNegative.
+	public void setBoundLower(Token aLiteral, boolean aNegative)
 	{
-		BoundLower = boundLower;
+		CheckWritable();
+		BoundLower = SetBound(aLiteral, aNegative, LOWER, LOWER_NOT_INT);
 	}
 
-	public String getBoundUpper()
+	// Returns the upper bound. Throws NumberFormatException if none was written or it is not an int.
+	public int getBoundUpper()
 	{
-		return BoundUpper;
+		return Bound(BoundUpper, UPPER, UPPER_NOT_INT);
 	}
 
-	public void setBoundUpper(String boundUpper)
+	// Sets the upper bound from an integer or float literal, negated if aNegative.
+	public void setBoundUpper(Token aLiteral, boolean aNegative)
+	{
+		CheckWritable();
+		BoundUpper = SetBound(aLiteral, aNegative, UPPER, UPPER_NOT_INT);
+	}
+	
+	// Clears both bounds.
+	public void clearBounds()
 	{
-		BoundUpper = boundUpper;
+		CheckWritable();
+		BoundLower = 0;
+		BoundUpper = 0;
+		Bounds = 0;
 	}
 
 	public List<String> getParameters()
@@ -93,6 +156,7 @@ public class Symbol
 
 	public void setParameters(List<String> parameters)
 	{
+		CheckWritable();
 		Parameters = parameters;
 	}
 
@@ -103,6 +167,7 @@ public class Symbol
 
 	public void setParameterTypes(List<TokenType> parameterTypes)
 	{
+		CheckWritable();
 		ParameterTypes = parameterTypes;
 	}
 
@@ -113,21 +178,31 @@ public class Symbol
 
 	public void setParameterReturnTypes(List<TokenType> parameterReturnTypes)
 	{
+		CheckWritable();
 		ParameterReturnTypes = parameterReturnTypes;
 	}
 	
 	public void addParameters(String aParameter)
 	{
+		CheckWritable();
+		if(Parameters == Collections.EMPTY_LIST)
+			Parameters = new ArrayList<String>();
 		Parameters.add(aParameter);
 	}
 	
 	public void addParameterTypes(TokenType aParameterType)
 	{
+		CheckWritable();
+		if(ParameterTypes == Collections.EMPTY_LIST)
+			ParameterTypes = new ArrayList<TokenType>();
 		ParameterTypes.add(aParameterType);
 	}
 	
 	public void addParameterReturnTypes(TokenType aParameterReturnType)
 	{
+		CheckWritable();
+		if(ParameterReturnTypes == Collections.EMPTY_LIST)
+			ParameterReturnTypes = new ArrayList<TokenType>();
 		ParameterReturnTypes.add(aParameterReturnType);
 	}
 
@@ -135,9 +210,71 @@ public class Symbol
 	{
 		return Global;
 	}
+	
+	// Returns the number of bytes of the symbol's signature. See PutSignature.
+	public int SignatureLength()
+	{
+		int theTypeCount = ParameterTypes == null ? 0 : ParameterTypes.size();
+		int theModeCount = ParameterReturnTypes == null ? 0 : ParameterReturnTypes.size();
+		return 18 + theTypeCount + theModeCount;
+	}
+	
+	// Puts the type, bounds and procedure signature of the symbol in aBytes, equal for two symbols exactly when a
+	// statement reading them sees the same of each. The line and the order the symbols were declared in are left out.
+	public void PutSignature(ByteBuffer aBytes)
+	{
+		int theTypeCount = ParameterTypes == null ? 0 : ParameterTypes.size();
+		int theModeCount = ParameterReturnTypes == null ? 0 : ParameterReturnTypes.size();
+		
+		aBytes.put(Code(Type)).put(Bounds).putInt(BoundLower).putInt(BoundUpper);
+		aBytes.putInt(ParameterTypes == null ? -1 : theTypeCount);
+		for(int i = 0; i < theTypeCount; i++)
+			aBytes.put(Code(ParameterTypes.get(i)));
+		aBytes.putInt(ParameterReturnTypes == null ? -1 : theModeCount);
+		for(int i = 0; i < theModeCount; i++)
+			aBytes.put(Code(ParameterReturnTypes.get(i)));
+	}
 
 	public void setGlobal(boolean global)
 	{
+		CheckWritable();
 		Global = global;
 	}
+	
+	// Throws UnsupportedOperationException for a built-in, as its unmodifiable parameter lists do.
+	private void CheckWritable()
+	{
+		if(ReadOnly)
+			throw new UnsupportedOperationException("Built-in procedures cannot be changed.");
+	}
+	
+	// Returns a bound, or throws NumberFormatException if it was not written as an int.
+	private int Bound(int aBound, int aWritten, int aNotInt)
+	{
+		if((Bounds & aWritten) == 0 || (Bounds & aNotInt) != 0)
+			throw new NumberFormatException("Bound is not an integer.");
+		return aBound;
+	}
+	
+	// Sets the bits of a bound from its literal. Returns the bound, or zero if it is a float or out of the range of an
+	// int.
+	private int SetBound(Token aLiteral, boolean aNegative, int aWritten, int aNotInt)
+	{
+		Bounds |= aWritten;
+		Bounds &= ~aNotInt;
+		
+		long theValue = aNegative ? -aLiteral.IntegerValue : aLiteral.IntegerValue;
+		if(aLiteral.TokenType != TokenType.INTEGER || theValue != (int) theValue)
+		{
+			Bounds |= aNotInt;
+			return 0;
+		}
+		return (int) theValue;
+	}
+	
+	// Returns the byte of a token type in a signature, zero for none.
+	private static byte Code(TokenType aType)
+	{
+		return (byte) (aType == null ? 0 : aType.ordinal() + 1);
+	}
 }
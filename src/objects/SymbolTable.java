@@ -1,121 +1,240 @@
 package objects;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Stack;
 
 import classes.ErrorLogger;
 
+// Symbols by scope key, such as 'program.procedure.name'. Keys are held as a tree of Scope nodes with a node per key,
+// so a name is looked up by its NameTable id among the children of a scope, without building or folding strings. The
+// children of every node are found in one ScopeMap. The built-in procedures are not kept here but in the Prelude,
+// which encloses the global scope of every table.
 public class SymbolTable
 {
 	// Public properties.
 	public Symbol CURR_SYMBOL;
-	public StringBuilder GLOBAL_SCOPE_KEY;
-	public StringBuilder SCOPE_KEY;
 	
-	// Private properties.
-	Stack<String> SCOPE_STACK;
-	HashMap<String, Symbol> SYMBOL_TABLE;
-	ErrorLogger theErrorLogger;
+	// Private properties. SCOPE is the node of the current scope key, and GLOBAL_SCOPE that of the program.
+	private Scope ROOT_SCOPE;
+	private Scope GLOBAL_SCOPE;
+	private Scope SCOPE;
+	private Stack<Scope> SCOPE_STACK;
+	private ScopeMap SCOPES;
+	private int SCOPE_COUNT;
+	private int SYMBOL_COUNT;
+	private ErrorLogger theErrorLogger;
+	private NameTable NAMES;
 	
-	// Constructor.
-	public SymbolTable(ErrorLogger aErrorLogger)
+	// For a snapshot, the number of symbols it sees, and the parameter lists shared by table symbols with the sizes
+	// they had. VISIBLE_COUNT is -1 for a table that sees every symbol.
+	private int VISIBLE_COUNT;
+	private List<String> SHARED_PARAMETERS;
+	private List<TokenType> SHARED_PARAMETER_TYPES;
+	private List<TokenType> SHARED_PARAMETER_RETURN_TYPES;
+	private int[] SHARED_SIZES;
+	
+	// Signature of the symbol first found for each key looked up, or null where none was, while lookups are recorded.
+	private Map<String, byte[]> LOOKUPS;
+	private SignaturePool SIGNATURES;
+	
+	// Constructor. Names are looked up by their ids in aNames, the table of the compilation.
+	public SymbolTable(ErrorLogger aErrorLogger, NameTable aNames)
 	{
 		// Set local error logger to passed parameter.
 		theErrorLogger = aErrorLogger;
+		NAMES = aNames;
 		
-		// Set scope key to empty StringBuilder.
-		SCOPE_KEY = new StringBuilder();
+		// Start in the root scope, whose key is empty. The first scope entered is the global scope.
+		ROOT_SCOPE = new Scope();
+		GLOBAL_SCOPE = null;
+		SCOPE = ROOT_SCOPE;
+		SCOPES = new ScopeMap();
+		SCOPE_COUNT = 1;
 		
-		// Set global scope key to empty StringBuilder.
-		GLOBAL_SCOPE_KEY = new StringBuilder();
-		
-		// Initialize CURR_SYMBOL to null.
+		// Initialize CURR_SYMBOL to null. Its parameter lists are made now, since every symbol put in the table shares them.
 		CURR_SYMBOL = new Symbol();
+		CURR_SYMBOL.setParameters(new ArrayList<String>());
+		CURR_SYMBOL.setParameterTypes(new ArrayList<TokenType>());
+		CURR_SYMBOL.setParameterReturnTypes(new ArrayList<TokenType>());
 		
 		// Initialize SCOPE_STACK to empty stack.
-		SCOPE_STACK = new Stack<String>();
+		SCOPE_STACK = new Stack<Scope>();
+		
+		SYMBOL_COUNT = 0;
+		VISIBLE_COUNT = -1;
+		LOOKUPS = null;
+		SIGNATURES = null;
+	}
+	
+	// Constructor for a snapshot of aTable. See Snapshot.
+	private SymbolTable(SymbolTable aTable)
+	{
+		theErrorLogger = aTable.theErrorLogger;
+		NAMES = aTable.NAMES;
+		ROOT_SCOPE = aTable.ROOT_SCOPE;
+		GLOBAL_SCOPE = aTable.GLOBAL_SCOPE;
+		SCOPE = aTable.SCOPE;
+		SCOPES = aTable.SCOPES;
+		SCOPE_COUNT = aTable.SCOPE_COUNT;
+		CURR_SYMBOL = new Symbol();
+		SCOPE_STACK = new Stack<Scope>();
+		
+		SYMBOL_COUNT = aTable.SYMBOL_COUNT;
+		VISIBLE_COUNT = aTable.SYMBOL_COUNT;
 		
-		// Initialize HashMap on instantiation.
-		SYMBOL_TABLE = new HashMap<String, Symbol>();
+		SHARED_PARAMETERS = aTable.CURR_SYMBOL.Parameters;
+		SHARED_PARAMETER_TYPES = aTable.CURR_SYMBOL.ParameterTypes;
+		SHARED_PARAMETER_RETURN_TYPES = aTable.CURR_SYMBOL.ParameterReturnTypes;
+		SHARED_SIZES = new int[] {SHARED_PARAMETERS.size(), SHARED_PARAMETER_TYPES.size(), SHARED_PARAMETER_RETURN_TYPES.size()};
+		LOOKUPS = null;
+		SIGNATURES = null;
+	}
+	
+	// Returns a table for looking up symbols as this table would now, from the current scope. Symbols added later are
+	// not seen, and the parameter lists that table symbols share with CURR_SYMBOL keep their current length. Lookups on
+	// a snapshot are safe from several threads once this table stops changing. A snapshot is not for adding symbols.
+	public SymbolTable Snapshot()
+	{
+		return new SymbolTable(this);
+	}
+	
+	// Starts recording the keys looked up in this table and what was found for them, with signatures held in
+	// aSignatures. See getLookups.
+	public void RecordLookups(SignaturePool aSignatures)
+	{
+		LOOKUPS = new LinkedHashMap<String, byte[]>();
+		SIGNATURES = aSignatures;
+	}
+	
+	// Returns each key looked up since RecordLookups with the signature of the symbol found, or null if none was. Looking
+	// the same keys up again finds symbols with the same signatures exactly when statements parsed against this table
+	// would parse the same against the other. Returns null if lookups are not recorded.
+	public Map<String, byte[]> getLookups()
+	{
+		return LOOKUPS;
+	}
+	
+	// Sends the table's errors to aErrorLogger.
+	public void setErrorLogger(ErrorLogger aErrorLogger)
+	{
+		theErrorLogger = aErrorLogger;
+	}
+	
+	// Returns the table the names of this one are interned in.
+	public NameTable getNames()
+	{
+		return NAMES;
+	}
+	
+	// Returns the current scope key.
+	public String getScopeKey()
+	{
+		return SCOPE.getKey();
 	}
 	
-	// Places the given values into SYMBOL_TABLE after instantiating a new Symbol Object.
+	// Places the given values into the table under the current scope key after instantiating a new Symbol Object.
 	public void PutSymbolInTable() throws IOException
 	{
 		// If the key is unique, put in symbol table. Otherwise, throw exception. 
-		if(!SYMBOL_TABLE.containsKey(SCOPE_KEY.toString().trim().toLowerCase()))
-			SYMBOL_TABLE.put(SCOPE_KEY.toString().trim().toLowerCase(), 
-					new Symbol(CURR_SYMBOL.getType(), CURR_SYMBOL.getLineNumber(), CURR_SYMBOL.getBoundLower(), CURR_SYMBOL.getBoundUpper(),
+		if(SCOPE.Declaration == null)
+			PutSymbol(SCOPE, 
+					new Symbol(CURR_SYMBOL.getType(), CURR_SYMBOL.getLineNumber(), CURR_SYMBOL.BoundLower, CURR_SYMBOL.BoundUpper, CURR_SYMBOL.Bounds,
 							CURR_SYMBOL.getParameters(), CURR_SYMBOL.getParameterTypes(), CURR_SYMBOL.getParameterReturnTypes(), CURR_SYMBOL.isGlobal()));
 		else
-			theErrorLogger.LogSymbolError(SCOPE_KEY.toString().trim());
+			theErrorLogger.LogSymbolError(SCOPE.getKey());
 		
 		CURR_SYMBOL.setType(null);
 		CURR_SYMBOL.setLineNumber(-1);
-		CURR_SYMBOL.setBoundLower(null);
-		CURR_SYMBOL.setBoundUpper(null);
+		CURR_SYMBOL.clearBounds();
 		CURR_SYMBOL.setGlobal(false);
 	}
 	
-	// Append substring to the scope key value.
-	public void AddToScopeKey(String aScopeAddition)
+	// Append the name with id aNameId to the scope key.
+	public void AddToScopeKey(int aNameId)
 	{
-		// For later entries onto SCOPE_KEY, format accordingly.
-		if(SCOPE_KEY.length() != 0)
+		// For later entries onto the scope key, enter the child scope.
+		if(SCOPE != ROOT_SCOPE)
 		{
-			SCOPE_KEY.append("." + aScopeAddition.toLowerCase());
+			SCOPE = FindOrAddScope(SCOPE, aNameId, NAMES.NameOf(aNameId));
 		}
 		// Unique entry format for first scope written.
 		else
 		{
-			GLOBAL_SCOPE_KEY.append(aScopeAddition.toLowerCase());
-			SCOPE_KEY.append(aScopeAddition.toLowerCase());
-			AddBuiltInFunctionsToSymbolTable();
+			SCOPE = FindOrAddScope(ROOT_SCOPE, aNameId, NAMES.NameOf(aNameId));
+			GLOBAL_SCOPE = SCOPE;
 		}
 	}
 	
 	// Update the scope for global case. 
 	public void UpdateScopeForGlobal()
 	{
-		SCOPE_STACK.push(SCOPE_KEY.toString().trim());
-		SCOPE_KEY.setLength(0);
-		SCOPE_KEY.append(GLOBAL_SCOPE_KEY.toString().trim());
+		SCOPE_STACK.push(SCOPE);
+		SCOPE = GLOBAL_SCOPE == null ? ROOT_SCOPE : GLOBAL_SCOPE;
 		CURR_SYMBOL.setGlobal(true);
 	}
 	
 	// Returns the scope for the global value.
 	public void ReturnScopeForGlobal()
 	{
-		SCOPE_KEY.setLength(0);
-		SCOPE_KEY.append(SCOPE_STACK.pop().toString().trim());
+		SCOPE = SCOPE_STACK.pop();
 	}
 	
-	// Returns the last string on end of scope key from '.' character.
+	// Returns the last name of the scope key.
 	public String ReturnEndOfScopeKey()
 	{
-		return SCOPE_KEY.toString().trim().substring(SCOPE_KEY.lastIndexOf(".") + 1);
+		return SCOPE == ROOT_SCOPE ? "" : SCOPE.Name;
 	}
 	
-	// Remove substring after last period in SCOPE_KEY.
+	// Remove the last name from the scope key. The global scope has no enclosing scope to return to.
 	public void RemoveFromScopeKey()
 	{
-		//SCOPE_KEY.setLength(SCOPE_KEY.lastIndexOf("."));
-		SCOPE_KEY = SCOPE_KEY.delete(SCOPE_KEY.lastIndexOf("."), SCOPE_KEY.length());
+		if(SCOPE == ROOT_SCOPE || SCOPE.Parent == ROOT_SCOPE)
+			throw new IllegalStateException("Scope '" + SCOPE.getKey() + "' has no enclosing scope.");
+		
+		SCOPE = SCOPE.Parent;
+	}
+	
+	// Returns the symbol for the name with id aNameId in the current scope, or else in the global scope.
+	public Symbol ReturnSymbolValueForName(int aNameId)
+	{
+		Symbol aReturnSymbol = ReturnSymbolValueForName(SCOPE, aNameId);
+		if(aReturnSymbol == null)
+			aReturnSymbol = ReturnSymbolValueForName(GLOBAL_SCOPE, aNameId);
+		return aReturnSymbol;
+	}
+	
+	// Returns the built-in procedure of aType, as seen from the global scope, or null.
+	public Symbol ReturnBuiltInSymbol(TokenType aType)
+	{
+		Symbol aReturnSymbol = GLOBAL_SCOPE == null ? null : Prelude.Find(aType);
+		if(LOOKUPS != null && GLOBAL_SCOPE != null)
+			RecordLookup(GLOBAL_SCOPE, NameTable.IdOf(aType), aReturnSymbol);
+		return aReturnSymbol;
 	}
 	
 	// Returns a symbol for given key value.
 	public Symbol ReturnSymbolValueForKey(String aKey)
 	{
-		Symbol aReturnSymbol = null;
-		
-		if(SYMBOL_TABLE.containsKey(aKey.toLowerCase()))
+		Scope theScope = ROOT_SCOPE;
+		String[] theNames = aKey.toLowerCase().split("\\.", -1);
+		for(int i = 0; i < theNames.length; i++)
 		{
-			aReturnSymbol = SYMBOL_TABLE.get(aKey.toLowerCase());
+			int theNameId = NAMES.IdOf(theNames[i]);
+			Scope theParent = theScope;
+			theScope = theNameId < 0 ? null : SCOPES.Get(theScope.Id, theNameId);
+			
+			// A built-in is found in the global scope where nothing there is declared under its name.
+			if(i == theNames.length - 1 && theParent == GLOBAL_SCOPE && theParent != null && (theScope == null || theScope.Declaration == null))
+				return Prelude.Find(theNameId);
+			if(theScope == null)
+				return null;
 		}
 		
-		return aReturnSymbol;
+		return Visible(theScope.Declaration);
 	}
 	
 	// For a procedure symbol, creates symbol objects in table.
@@ -123,46 +242,88 @@ public class SymbolTable
 	{
 		for(int idx = 0; idx < CURR_SYMBOL.Parameters.size(); idx++)
 		{
-			if(!SYMBOL_TABLE.containsKey(SCOPE_KEY.toString().trim().toLowerCase() + "." + CURR_SYMBOL.Parameters.get(idx)))
-				SYMBOL_TABLE.put(SCOPE_KEY.toString().trim().toLowerCase() + "." + CURR_SYMBOL.Parameters.get(idx), 
-						new Symbol(CURR_SYMBOL.ParameterTypes.get(idx), CURR_SYMBOL.getLineNumber(), null, null,
-								null, null, Arrays.asList(CURR_SYMBOL.ParameterReturnTypes.get(idx)),false));
+			// A name with upper case letters is declared, but lookups, which are in lower case, never find it.
+			String aName = CURR_SYMBOL.Parameters.get(idx);
+			if(!aName.equals(aName.toLowerCase()))
+			{
+				if(SCOPE.AddHiddenName(aName))
+					SYMBOL_COUNT++;
+				continue;
+			}
+			
+			Scope aScope = FindOrAddScope(SCOPE, NAMES.Intern(aName), aName);
+			if(aScope.Declaration == null)
+				PutSymbol(aScope, 
+						new Symbol(CURR_SYMBOL.ParameterTypes.get(idx), CURR_SYMBOL.getLineNumber(),
+								null, null, Symbol.SingleType(CURR_SYMBOL.ParameterReturnTypes.get(idx)),false));
 		}
 	}
 	
 	// Used for translation purposes.
 	public String ReturnScopeKeyForTranslation()
 	{
-		String aScopeString = SCOPE_KEY.toString().trim();
+		String aScopeString = SCOPE.getKey();
 		String aReturnString = aScopeString.replace(".", "_");
 		return aReturnString;
 	}
 	
-	// Adds built-in functions to table. Includes corresponding parameters.
-	private void AddBuiltInFunctionsToSymbolTable()
+	// Returns the symbol for the name with id aNameId in aScope, as this table sees it, recording the lookup. The global
+	// scope also holds the built-ins.
+	private Symbol ReturnSymbolValueForName(Scope aScope, int aNameId)
 	{
-		Symbol aGetBoolSymbol = new Symbol(TokenType.GETBOOL, 0, null, null, Arrays.asList("val"), Arrays.asList(TokenType.BOOL), Arrays.asList(TokenType.OUT), true);
-		Symbol aGetIntegerSymbol = new Symbol(TokenType.GETINTEGER, 0, null, null, Arrays.asList("val"), Arrays.asList(TokenType.INTEGER), Arrays.asList(TokenType.OUT), true);
-		Symbol aGetFloatSymbol = new Symbol(TokenType.GETFLOAT, 0, null, null, Arrays.asList("val"), Arrays.asList(TokenType.FLOAT), Arrays.asList(TokenType.OUT), true);
-		Symbol aGetStringSymbol = new Symbol(TokenType.GETSTRING, 0, null, null, Arrays.asList("val"), Arrays.asList(TokenType.STRING), Arrays.asList(TokenType.OUT), true);
-		Symbol aGetCharSymbol = new Symbol(TokenType.GETCHAR, 0, null, null, Arrays.asList("val"), Arrays.asList(TokenType.CHAR), Arrays.asList(TokenType.OUT), true);
+		Scope theScope = aScope == null ? null : SCOPES.Get(aScope.Id, aNameId);
+		Symbol aReturnSymbol = Visible(theScope == null ? null : theScope.Declaration);
+		if(aReturnSymbol == null && aScope != null && aScope == GLOBAL_SCOPE && (theScope == null || theScope.Declaration == null))
+			aReturnSymbol = Prelude.Find(aNameId);
 		
-		Symbol aPutBoolSymbol = new Symbol(TokenType.PUTBOOL, 0, null, null, Arrays.asList("val"), Arrays.asList(TokenType.BOOL), Arrays.asList(TokenType.IN), true);
-		Symbol aPutIntegerSymbol = new Symbol(TokenType.PUTINTEGER, 0, null, null, Arrays.asList("val"), Arrays.asList(TokenType.INTEGER), Arrays.asList(TokenType.IN), true);
-		Symbol aPutFloatSymbol = new Symbol(TokenType.PUTFLOAT, 0, null, null, Arrays.asList("val"), Arrays.asList(TokenType.FLOAT), Arrays.asList(TokenType.IN), true);
-		Symbol aPutStringSymbol = new Symbol(TokenType.PUTSTRING, 0, null, null, Arrays.asList("val"), Arrays.asList(TokenType.STRING), Arrays.asList(TokenType.IN), true);
-		Symbol aPutCharSymbol = new Symbol(TokenType.PUTCHAR, 0, null, null, Arrays.asList("val"), Arrays.asList(TokenType.CHAR), Arrays.asList(TokenType.IN), true);
+		if(LOOKUPS != null)
+			RecordLookup(aScope, aNameId, aReturnSymbol);
+		return aReturnSymbol;
+	}
+	
+	// Records what a lookup of the name with id aNameId in aScope found, unless that key was looked up before.
+	private void RecordLookup(Scope aScope, int aNameId, Symbol aSymbol)
+	{
+		String theKey = (aScope == null ? "" : aScope.getKey()) + "." + NAMES.NameOf(aNameId);
+		if(!LOOKUPS.containsKey(theKey))
+			LOOKUPS.put(theKey, SIGNATURES.Intern(aSymbol));
+	}
+	
+	// Returns aSymbol as this table sees it. A snapshot sees the symbols and parameter lists as they were when it was
+	// taken.
+	private Symbol Visible(Symbol aSymbol)
+	{
+		if(aSymbol == null || VISIBLE_COUNT < 0)
+			return aSymbol;
 		
-		SYMBOL_TABLE.put(SCOPE_KEY.toString().trim().toLowerCase() + ".getbool", aGetBoolSymbol);
-		SYMBOL_TABLE.put(SCOPE_KEY.toString().trim().toLowerCase() + ".getinteger", aGetIntegerSymbol);
-		SYMBOL_TABLE.put(SCOPE_KEY.toString().trim().toLowerCase() + ".getfloat", aGetFloatSymbol);
-		SYMBOL_TABLE.put(SCOPE_KEY.toString().trim().toLowerCase() + ".getstring", aGetStringSymbol);
-		SYMBOL_TABLE.put(SCOPE_KEY.toString().trim().toLowerCase() + ".getchar", aGetCharSymbol);
+		if(aSymbol.Order >= VISIBLE_COUNT)
+			return null;
 		
-		SYMBOL_TABLE.put(SCOPE_KEY.toString().trim().toLowerCase() + ".putbool", aPutBoolSymbol);
-		SYMBOL_TABLE.put(SCOPE_KEY.toString().trim().toLowerCase() + ".putinteger", aPutIntegerSymbol);
-		SYMBOL_TABLE.put(SCOPE_KEY.toString().trim().toLowerCase() + ".putfloat", aPutFloatSymbol);
-		SYMBOL_TABLE.put(SCOPE_KEY.toString().trim().toLowerCase() + ".putstring", aPutStringSymbol);
-		SYMBOL_TABLE.put(SCOPE_KEY.toString().trim().toLowerCase() + ".putchar", aPutCharSymbol);
+		if(aSymbol.Parameters == SHARED_PARAMETERS)
+		{
+			return new Symbol(aSymbol.Type, aSymbol.LineNumber, aSymbol.BoundLower, aSymbol.BoundUpper, aSymbol.Bounds,
+					SHARED_PARAMETERS.subList(0, SHARED_SIZES[0]), SHARED_PARAMETER_TYPES.subList(0, SHARED_SIZES[1]),
+					SHARED_PARAMETER_RETURN_TYPES.subList(0, SHARED_SIZES[2]), aSymbol.Global);
+		}
+		return aSymbol;
+	}
+	
+	// Returns the scope named aNameId in aScope, adding it named aName if there is none.
+	private Scope FindOrAddScope(Scope aScope, int aNameId, String aName)
+	{
+		Scope theScope = SCOPES.Get(aScope.Id, aNameId);
+		if(theScope == null)
+		{
+			theScope = new Scope(aScope, aName, SCOPE_COUNT++);
+			SCOPES.Put(aScope.Id, aNameId, theScope);
+		}
+		return theScope;
+	}
+	
+	// Puts a symbol in the node of its key, numbering it in the order symbols are added.
+	private void PutSymbol(Scope aScope, Symbol aSymbol)
+	{
+		aSymbol.Order = SYMBOL_COUNT++;
+		aScope.Declaration = aSymbol;
 	}
 }
@@ -0,0 +1,380 @@
+package objects;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Syntax tree built by Parse. Nodes are int indexes into parallel primitive columns holding the node kind, a copy of
+// the node's token and first child and next sibling links, so a tree of any size is a handful of arrays.
+public class SyntaxTree
+{
+	// Link and index value meaning no node, no token type or no text.
+	public static final int NONE = -1;
+	
+	// Node kinds. The token each kind refers to, and its children, in order.
+	public static final int PROGRAM = 0;		// Program name. Declarations, then the body BLOCK.
+	public static final int PROCEDURE = 1;		// Procedure name. PARAMETERs, declarations, then the body BLOCK.
+	public static final int VARIABLE = 2;		// Type mark. The NAME, then the bounds of an array.
+	public static final int PARAMETER = 3;		// Parameter mode. The VARIABLE.
+	public static final int GLOBAL = 4;			// 'global'. The declaration.
+	public static final int BLOCK = 5;			// None. The statements.
+	public static final int ASSIGNMENT = 6;		// ':='. The destination NAME, then the expression.
+	public static final int CALL = 7;			// Procedure name. The arguments.
+	public static final int RETURN = 8;			// 'return'. None.
+	public static final int IF = 9;				// 'if'. The condition, the then BLOCK and an optional else BLOCK.
+	public static final int FOR = 10;			// 'for'. The ASSIGNMENT, the condition, then the body BLOCK.
+	public static final int ERROR = 11;			// Error token of a skipped statement. None.
+	public static final int BINARY = 12;		// Operator. Left and right operands.
+	public static final int UNARY = 13;			// '-' or 'not'. The operand.
+	public static final int NAME = 14;			// Identifier. The index expression of an array element.
+	public static final int LITERAL = 15;		// Literal. None.
+	
+	private static final String[] KIND_NAMES = {
+			"PROGRAM", "PROCEDURE", "VARIABLE", "PARAMETER", "GLOBAL", "BLOCK", "ASSIGNMENT", "CALL", "RETURN", "IF",
+			"FOR", "ERROR", "BINARY", "UNARY", "NAME", "LITERAL"};
+	
+	private static final TokenType[] TYPES = TokenType.values();
+	
+	// Private properties.
+	private int Count;
+	private int Root;
+	
+	private int[] Kinds;
+	private int[] Types;
+	private int[] Lines;
+	private int[] Starts;
+	private int[] Lengths;
+	private int[] Texts;
+	private long[] Values;
+	private int[] FirstChildren;
+	private int[] NextSiblings;
+	
+	// Identifier, string and character texts, each kept once.
+	private List<String> TextList;
+	private Map<String, Integer> TextIds;
+	
+	// Index of the text last kept for the identifier with each NameTable id, or NONE.
+	private int[] NameTexts;
+	
+	// Constructor.
+	public SyntaxTree()
+	{
+		Count = 0;
+		Root = NONE;
+		
+		Kinds = new int[64];
+		Types = new int[64];
+		Lines = new int[64];
+		Starts = new int[64];
+		Lengths = new int[64];
+		Texts = new int[64];
+		Values = new long[64];
+		FirstChildren = new int[64];
+		NextSiblings = new int[64];
+		
+		TextList = new ArrayList<String>();
+		TextIds = new HashMap<String, Integer>();
+		NameTexts = new int[0];
+	}
+	
+	// Appends a node without children and returns its index. The token may be null.
+	public int AddNode(int aKind, Token aToken)
+	{
+		if(Count == Kinds.length)
+			GrowColumns();
+		
+		Kinds[Count] = aKind;
+		FirstChildren[Count] = NONE;
+		NextSiblings[Count] = NONE;
+		
+		if(aToken != null)
+		{
+			Types[Count] = aToken.TokenType.ordinal();
+			Lines[Count] = aToken.TokenLineNumber;
+			Starts[Count] = aToken.TokenStart;
+			Lengths[Count] = aToken.TokenLength;
+			Texts[Count] = NONE;
+			Values[Count] = 0;
+			
+			switch(aToken.TokenType)
+			{
+				case IDENTITY:
+					Texts[Count] = NameText(aToken);
+					break;
+				case STRING: case CHAR:
+					if(aKind == LITERAL)
+						Texts[Count] = InternText(aToken.TokenValue.toString());
+					break;
+				case INTEGER:
+					Values[Count] = aToken.IntegerValue;
+					break;
+				case FLOAT:
+					Values[Count] = Double.doubleToRawLongBits(aToken.FloatValue);
+					break;
+				default:
+					break;
+			}
+		}
+		else
+		{
+			Types[Count] = NONE;
+			Lines[Count] = 0;
+			Starts[Count] = -1;
+			Lengths[Count] = 0;
+			Texts[Count] = NONE;
+			Values[Count] = 0;
+		}
+		
+		return Count++;
+	}
+	
+	// Links nodes aFrom to aTo of aNodes, in order, as the children of aParent.
+	public void SetChildren(int aParent, int[] aNodes, int aFrom, int aTo)
+	{
+		FirstChildren[aParent] = aFrom < aTo ? aNodes[aFrom] : NONE;
+		for(int i = aFrom; i < aTo; i++)
+			NextSiblings[aNodes[i]] = i + 1 < aTo ? aNodes[i + 1] : NONE;
+	}
+	
+	// Copies the nodes of aOther into this tree and makes the children of aOther's node aOtherNode the children of aNode.
+	public void CopyChildren(int aNode, SyntaxTree aOther, int aOtherNode)
+	{
+		CopyChildren(aNode, aOther, aOtherNode, 0, 0);
+	}
+	
+	// Copies as above, moving the copied tokens aStartShift bytes and aLineShift lines, for a tree parsed from text that
+	// has since moved.
+	public void CopyChildren(int aNode, SyntaxTree aOther, int aOtherNode, int aStartShift, int aLineShift)
+	{
+		int theShift = Count;
+		for(int i = 0; i < aOther.Count; i++)
+		{
+			if(Count == Kinds.length)
+				GrowColumns();
+			
+			Kinds[Count] = aOther.Kinds[i];
+			Types[Count] = aOther.Types[i];
+			Lines[Count] = aOther.Types[i] == NONE ? aOther.Lines[i] : aOther.Lines[i] + aLineShift;
+			Starts[Count] = aOther.Starts[i] < 0 ? aOther.Starts[i] : aOther.Starts[i] + aStartShift;
+			Lengths[Count] = aOther.Lengths[i];
+			Texts[Count] = aOther.Texts[i] == NONE ? NONE : InternText(aOther.TextList.get(aOther.Texts[i]));
+			Values[Count] = aOther.Values[i];
+			FirstChildren[Count] = aOther.FirstChildren[i] == NONE ? NONE : aOther.FirstChildren[i] + theShift;
+			NextSiblings[Count] = aOther.NextSiblings[i] == NONE ? NONE : aOther.NextSiblings[i] + theShift;
+			Count++;
+		}
+		
+		FirstChildren[aNode] = aOther.FirstChildren[aOtherNode] == NONE ? NONE : aOther.FirstChildren[aOtherNode] + theShift;
+	}
+	
+	// Drops every node from aCount on. Nodes kept must not link to them.
+	public void Truncate(int aCount)
+	{
+		Count = aCount;
+		if(Root >= aCount)
+			Root = NONE;
+	}
+	
+	public int getCount()
+	{
+		return Count;
+	}
+	
+	public int getRoot()
+	{
+		return Root;
+	}
+	
+	public void setRoot(int aRoot)
+	{
+		Root = aRoot;
+	}
+	
+	public int getKind(int aNode)
+	{
+		return Kinds[aNode];
+	}
+	
+	// Returns the type of the node's token, or null when it has none.
+	public TokenType getType(int aNode)
+	{
+		return Types[aNode] == NONE ? null : TYPES[Types[aNode]];
+	}
+	
+	public int getLine(int aNode)
+	{
+		return Lines[aNode];
+	}
+	
+	// Returns the source offset of the node's token, or -1 when it is unknown.
+	public int getStart(int aNode)
+	{
+		return Starts[aNode];
+	}
+	
+	public int getLength(int aNode)
+	{
+		return Lengths[aNode];
+	}
+	
+	// Returns the text of an identifier, string or character token, or null for other nodes.
+	public String getText(int aNode)
+	{
+		return Texts[aNode] == NONE ? null : TextList.get(Texts[aNode]);
+	}
+	
+	// Returns the index of the node's text among the distinct texts, or NONE. Equal texts share an index.
+	public int getTextId(int aNode)
+	{
+		return Texts[aNode];
+	}
+	
+	// Returns the decoded value of an integer literal, or the raw double bits of a float literal.
+	public long getValue(int aNode)
+	{
+		return Values[aNode];
+	}
+	
+	// Returns the decoded value of a float literal.
+	public double getFloatValue(int aNode)
+	{
+		return Double.longBitsToDouble(Values[aNode]);
+	}
+	
+	public int getFirstChild(int aNode)
+	{
+		return FirstChildren[aNode];
+	}
+	
+	public int getNextSibling(int aNode)
+	{
+		return NextSiblings[aNode];
+	}
+	
+	public int getChildCount(int aNode)
+	{
+		int theCount = 0;
+		for(int theChild = FirstChildren[aNode]; theChild != NONE; theChild = NextSiblings[theChild])
+			theCount++;
+		return theCount;
+	}
+	
+	// Returns the name of a node kind.
+	public static String KindName(int aKind)
+	{
+		return KIND_NAMES[aKind];
+	}
+	
+	// Prints the tree under the root, one node per line indented by depth. Walks with an explicit stack so deep trees
+	// do not grow the Java stack.
+	public void Print(PrintStream aOut)
+	{
+		if(Root == NONE)
+			return;
+		
+		int[] theNodes = new int[16];
+		int[] theDepths = new int[16];
+		theNodes[0] = Root;
+		theDepths[0] = 0;
+		int theTop = 1;
+		
+		StringBuilder theLine = new StringBuilder();
+		while(theTop > 0)
+		{
+			theTop--;
+			int theNode = theNodes[theTop];
+			int theDepth = theDepths[theTop];
+			
+			// The sibling is printed after this node's subtree.
+			if(NextSiblings[theNode] != NONE)
+			{
+				theNodes[theTop] = NextSiblings[theNode];
+				theTop++;
+			}
+			
+			theLine.setLength(0);
+			for(int i = 0; i < theDepth; i++)
+				theLine.append("  ");
+			theLine.append(KIND_NAMES[Kinds[theNode]]);
+			if(Types[theNode] != NONE)
+			{
+				theLine.append(' ').append(TYPES[Types[theNode]]);
+				if(Texts[theNode] != NONE)
+					theLine.append(' ').append(TextList.get(Texts[theNode]));
+				else if(Types[theNode] == TokenType.INTEGER.ordinal() && Kinds[theNode] == LITERAL)
+					theLine.append(' ').append(Values[theNode]);
+				else if(Types[theNode] == TokenType.FLOAT.ordinal() && Kinds[theNode] == LITERAL)
+					theLine.append(' ').append(getFloatValue(theNode));
+				theLine.append(" line ").append(Lines[theNode]);
+			}
+			aOut.println(theLine);
+			
+			if(FirstChildren[theNode] != NONE)
+			{
+				if(theTop == theNodes.length)
+				{
+					theNodes = Arrays.copyOf(theNodes, theTop * 2);
+					theDepths = Arrays.copyOf(theDepths, theTop * 2);
+				}
+				theNodes[theTop] = FirstChildren[theNode];
+				theDepths[theTop] = theDepth + 1;
+				theTop++;
+			}
+		}
+	}
+	
+	// Returns the index of an identifier's text. An identifier met before is found by its NameTable id, without copying
+	// or hashing its text again, unless it was spelled in another case.
+	private int NameText(Token aToken)
+	{
+		int theNameId = aToken.NameId;
+		if(theNameId < 0)
+			return InternText(aToken.TokenValue.toString());
+		
+		if(theNameId >= NameTexts.length)
+		{
+			int theLength = NameTexts.length;
+			NameTexts = Arrays.copyOf(NameTexts, Math.max(64, Integer.highestOneBit(theNameId) << 1));
+			Arrays.fill(NameTexts, theLength, NameTexts.length, NONE);
+		}
+		
+		int theText = NameTexts[theNameId];
+		if(theText != NONE && TextList.get(theText).contentEquals(aToken.TokenValue))
+			return theText;
+		
+		theText = InternText(aToken.TokenValue.toString());
+		NameTexts[theNameId] = theText;
+		return theText;
+	}
+	
+	// Returns the index of a text, adding it when it is new.
+	private int InternText(String aText)
+	{
+		Integer theId = TextIds.get(aText);
+		if(theId == null)
+		{
+			theId = TextList.size();
+			TextList.add(aText);
+			TextIds.put(aText, theId);
+		}
+		return theId;
+	}
+	
+	// Doubles the columns.
+	private void GrowColumns()
+	{
+		int theCapacity = Kinds.length * 2;
+		Kinds = Arrays.copyOf(Kinds, theCapacity);
+		Types = Arrays.copyOf(Types, theCapacity);
+		Lines = Arrays.copyOf(Lines, theCapacity);
+		Starts = Arrays.copyOf(Starts, theCapacity);
+		Lengths = Arrays.copyOf(Lengths, theCapacity);
+		Texts = Arrays.copyOf(Texts, theCapacity);
+		Values = Arrays.copyOf(Values, theCapacity);
+		FirstChildren = Arrays.copyOf(FirstChildren, theCapacity);
+		NextSiblings = Arrays.copyOf(NextSiblings, theCapacity);
+	}
+}
@@ -4,15 +4,37 @@ public class Token
 {
 	// Properties.
 	public TokenType TokenType;
-	public String TokenValue;
+	public CharSequence TokenValue;
 	public int TokenLineNumber;
 	
+	// Source span of the token. TokenStart is -1 when the offset is unknown.
+	public int TokenStart;
+	public int TokenLength;
+	
+	// Decoded value of an integer or float literal.
+	public long IntegerValue;
+	public double FloatValue;
+	
+	// Id of an identifier's name in the NameTable, or -1 for other tokens.
+	public int NameId;
+	
 	// Constructor.
-	public Token(TokenType aTokenType, String aTokenValue, int aTokenLineNumber)
+	public Token(TokenType aTokenType, CharSequence aTokenValue, int aTokenLineNumber)
 	{
 		// Initialize global values.
 		TokenType = aTokenType;
 		TokenValue = aTokenValue;
 		TokenLineNumber = aTokenLineNumber;
+		TokenStart = -1;
+		TokenLength = 0;
+		NameId = -1;
+	}
+	
+	// Constructor with the token's source span.
+	public Token(TokenType aTokenType, CharSequence aTokenValue, int aTokenLineNumber, int aTokenStart, int aTokenLength)
+	{
+		this(aTokenType, aTokenValue, aTokenLineNumber);
+		TokenStart = aTokenStart;
+		TokenLength = aTokenLength;
 	}
 }
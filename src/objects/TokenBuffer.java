@@ -0,0 +1,243 @@
+package objects;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// Packed token stream. Token kind, start offset, length, line and literal value are kept in parallel primitive columns
+// and moved off-heap once the stream grows past a threshold.
+public class TokenBuffer
+{
+	// Kind stored for a character Scan could not turn into a token.
+	public static final int ILLEGAL = -1;
+	
+	// Default token count after which columns move off-heap.
+	public static final int DEFAULT_OFF_HEAP_THRESHOLD = 1 << 20;
+	
+	// Off-heap layout: four int columns and the long value column interleaved per token.
+	private static final int KIND_FIELD = 0;
+	private static final int START_FIELD = 4;
+	private static final int LENGTH_FIELD = 8;
+	private static final int LINE_FIELD = 12;
+	private static final int VALUE_FIELD = 16;
+	private static final int TOKEN_BYTES = 24;
+	
+	private static final TokenType[] TYPES = TokenType.values();
+	
+	// Private properties.
+	private ByteBuffer Source;
+	private int Count;
+	private int OffHeapThreshold;
+	
+	private int[] Kinds;
+	private int[] Starts;
+	private int[] Lengths;
+	private int[] Lines;
+	private long[] Values;
+	
+	private ByteBuffer OffHeap;
+	
+	// Constructor.
+	public TokenBuffer(ByteBuffer aSource)
+	{
+		this(aSource, DEFAULT_OFF_HEAP_THRESHOLD);
+	}
+	
+	// Constructor. Columns move off-heap once more than aOffHeapThreshold tokens are added.
+	public TokenBuffer(ByteBuffer aSource, int aOffHeapThreshold)
+	{
+		Source = aSource;
+		Count = 0;
+		OffHeapThreshold = aOffHeapThreshold;
+		
+		int theCapacity = Math.max(16, Math.min(aOffHeapThreshold, 1024));
+		Kinds = new int[theCapacity];
+		Starts = new int[theCapacity];
+		Lengths = new int[theCapacity];
+		Lines = new int[theCapacity];
+		Values = new long[theCapacity];
+		
+		OffHeap = null;
+	}
+	
+	// Appends a token. A null type records an illegal character.
+	public void Add(TokenType aType, int aStart, int aLength, int aLine)
+	{
+		Add(aType, aStart, aLength, aLine, 0);
+	}
+	
+	// Appends a token with the decoded value of a number literal. Floats are passed as their raw double bits.
+	public void Add(TokenType aType, int aStart, int aLength, int aLine, long aValue)
+	{
+		int theKind = aType == null ? ILLEGAL : aType.ordinal();
+		
+		if(OffHeap == null && Count == Kinds.length)
+		{
+			if(Count >= OffHeapThreshold)
+				MoveOffHeap();
+			else
+				GrowColumns();
+		}
+		
+		if(OffHeap != null)
+		{
+			if((long) (Count + 1) * TOKEN_BYTES > OffHeap.capacity())
+				GrowOffHeap();
+			
+			int theBase = Count * TOKEN_BYTES;
+			OffHeap.putInt(theBase + KIND_FIELD, theKind);
+			OffHeap.putInt(theBase + START_FIELD, aStart);
+			OffHeap.putInt(theBase + LENGTH_FIELD, aLength);
+			OffHeap.putInt(theBase + LINE_FIELD, aLine);
+			OffHeap.putLong(theBase + VALUE_FIELD, aValue);
+		}
+		else
+		{
+			Kinds[Count] = theKind;
+			Starts[Count] = aStart;
+			Lengths[Count] = aLength;
+			Lines[Count] = aLine;
+			Values[Count] = aValue;
+		}
+		
+		Count++;
+	}
+	
+	// Appends tokens aFrom to aTo of another buffer, moving their starts by aStartShift and lines by aLineShift.
+	public void AddAll(TokenBuffer aOther, int aFrom, int aTo, int aStartShift, int aLineShift)
+	{
+		int theCount = aTo - aFrom;
+		if(OffHeap == null && aOther.OffHeap == null && Count + theCount <= OffHeapThreshold)
+		{
+			// Both sides on-heap: copy whole columns and adjust them in place.
+			while(Count + theCount > Kinds.length)
+				GrowColumns();
+			
+			System.arraycopy(aOther.Kinds, aFrom, Kinds, Count, theCount);
+			System.arraycopy(aOther.Starts, aFrom, Starts, Count, theCount);
+			System.arraycopy(aOther.Lengths, aFrom, Lengths, Count, theCount);
+			System.arraycopy(aOther.Lines, aFrom, Lines, Count, theCount);
+			System.arraycopy(aOther.Values, aFrom, Values, Count, theCount);
+			
+			for(int i = Count; i < Count + theCount; i++)
+			{
+				Starts[i] += aStartShift;
+				Lines[i] += aLineShift;
+			}
+			
+			Count += theCount;
+			return;
+		}
+		
+		for(int i = aFrom; i < aTo; i++)
+			Add(aOther.getType(i), aOther.getStart(i) + aStartShift, aOther.getLength(i), aOther.getLine(i) + aLineShift, aOther.getValue(i));
+	}
+	
+	public ByteBuffer getSource()
+	{
+		return Source;
+	}
+	
+	public int getCount()
+	{
+		return Count;
+	}
+	
+	public boolean isOffHeap()
+	{
+		return OffHeap != null;
+	}
+	
+	// Returns the TokenType ordinal of a token, or ILLEGAL.
+	public int getKind(int aIndex)
+	{
+		return OffHeap != null ? OffHeap.getInt(aIndex * TOKEN_BYTES + KIND_FIELD) : Kinds[aIndex];
+	}
+	
+	// Returns the type of a token, or null for an illegal character.
+	public TokenType getType(int aIndex)
+	{
+		int theKind = getKind(aIndex);
+		return theKind == ILLEGAL ? null : TYPES[theKind];
+	}
+	
+	public int getStart(int aIndex)
+	{
+		return OffHeap != null ? OffHeap.getInt(aIndex * TOKEN_BYTES + START_FIELD) : Starts[aIndex];
+	}
+	
+	public int getLength(int aIndex)
+	{
+		return OffHeap != null ? OffHeap.getInt(aIndex * TOKEN_BYTES + LENGTH_FIELD) : Lengths[aIndex];
+	}
+	
+	public int getLine(int aIndex)
+	{
+		return OffHeap != null ? OffHeap.getInt(aIndex * TOKEN_BYTES + LINE_FIELD) : Lines[aIndex];
+	}
+	
+	// Returns the decoded value of an integer literal, the raw double bits of a float literal, or the NameTable id of
+	// an identifier.
+	public long getValue(int aIndex)
+	{
+		return OffHeap != null ? OffHeap.getLong(aIndex * TOKEN_BYTES + VALUE_FIELD) : Values[aIndex];
+	}
+	
+	// Returns the decoded value of a float literal.
+	public double getFloatValue(int aIndex)
+	{
+		return Double.longBitsToDouble(getValue(aIndex));
+	}
+	
+	// Returns a view of the token's characters in the source.
+	public TokenText getText(int aIndex)
+	{
+		return new TokenText(Source, getStart(aIndex), getLength(aIndex));
+	}
+	
+	// Doubles the on-heap columns.
+	private void GrowColumns()
+	{
+		int theCapacity = (int) Math.min((long) Kinds.length * 2, Math.max(OffHeapThreshold, Kinds.length + 1));
+		Kinds = Arrays.copyOf(Kinds, theCapacity);
+		Starts = Arrays.copyOf(Starts, theCapacity);
+		Lengths = Arrays.copyOf(Lengths, theCapacity);
+		Lines = Arrays.copyOf(Lines, theCapacity);
+		Values = Arrays.copyOf(Values, theCapacity);
+	}
+	
+	// Copies the on-heap columns into a direct buffer and releases them.
+	private void MoveOffHeap()
+	{
+		long theCapacity = Math.min(Math.max(Count, 16) * 2L * TOKEN_BYTES, (long) Integer.MAX_VALUE / TOKEN_BYTES * TOKEN_BYTES);
+		OffHeap = ByteBuffer.allocateDirect((int) theCapacity).order(ByteOrder.nativeOrder());
+		for(int i = 0; i < Count; i++)
+		{
+			int theBase = i * TOKEN_BYTES;
+			OffHeap.putInt(theBase + KIND_FIELD, Kinds[i]);
+			OffHeap.putInt(theBase + START_FIELD, Starts[i]);
+			OffHeap.putInt(theBase + LENGTH_FIELD, Lengths[i]);
+			OffHeap.putInt(theBase + LINE_FIELD, Lines[i]);
+			OffHeap.putLong(theBase + VALUE_FIELD, Values[i]);
+		}
+		
+		Kinds = null;
+		Starts = null;
+		Lengths = null;
+		Lines = null;
+		Values = null;
+	}
+	
+	// Doubles the off-heap region.
+	private void GrowOffHeap()
+	{
+		long theCapacity = Math.min((long) OffHeap.capacity() * 2, (long) Integer.MAX_VALUE / TOKEN_BYTES * TOKEN_BYTES);
+		if(theCapacity < (long) (Count + 1) * TOKEN_BYTES)
+			throw new IllegalStateException("Token buffer cannot hold more than " + Count + " tokens.");
+		
+		ByteBuffer theOffHeap = ByteBuffer.allocateDirect((int) theCapacity).order(ByteOrder.nativeOrder());
+		OffHeap.clear();
+		theOffHeap.put(OffHeap);
+		OffHeap = theOffHeap;
+	}
+}
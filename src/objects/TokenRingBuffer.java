@@ -0,0 +1,126 @@
+package objects;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Lock-free single-producer/single-consumer ring of tokens. The producer publishes in batches so the
+// consumer only sees a new tail once per batch.
+public class TokenRingBuffer
+{
+	// Stands in for the null token Scan returns on an illegal character.
+	private static final Token ILLEGAL = new Token(null, "", -1);
+	
+	// Private properties.
+	Token[] Slots;
+	int Mask;
+	int BatchSize;
+	
+	// Published positions. Each is written by one side only.
+	AtomicLong Head;
+	AtomicLong Tail;
+	volatile boolean Closed;
+	volatile boolean Cancelled;
+	
+	// Producer side position and cached consumer position.
+	long PendingTail;
+	long CachedHead;
+	
+	// Consumer side position and cached producer position.
+	long ConsumerHead;
+	long CachedTail;
+	
+	// Constructor. The capacity is rounded up to a power of two.
+	public TokenRingBuffer(int aCapacity, int aBatchSize)
+	{
+		int theCapacity = Integer.highestOneBit(Math.max(aCapacity, 2) - 1) << 1;
+		
+		Slots = new Token[theCapacity];
+		Mask = theCapacity - 1;
+		BatchSize = Math.max(1, Math.min(aBatchSize, theCapacity));
+		
+		Head = new AtomicLong(0);
+		Tail = new AtomicLong(0);
+		Closed = false;
+		Cancelled = false;
+		
+		PendingTail = 0;
+		CachedHead = 0;
+		ConsumerHead = 0;
+		CachedTail = 0;
+	}
+	
+	// Producer: adds a token, null for an illegal character. Publishes whenever a batch fills up and
+	// waits while the ring is full. Returns false, dropping the token, once the consumer has cancelled.
+	public boolean Put(Token aToken)
+	{
+		if(PendingTail - CachedHead == Slots.length)
+		{
+			Publish();
+			while(PendingTail - (CachedHead = Head.get()) == Slots.length)
+			{
+				if(Cancelled)
+					return false;
+				LockSupport.parkNanos(1000);
+			}
+		}
+		
+		Slots[(int) PendingTail & Mask] = aToken == null ? ILLEGAL : aToken;
+		PendingTail++;
+		
+		if(PendingTail - Tail.get() >= BatchSize)
+			Publish();
+		return !Cancelled;
+	}
+	
+	// Producer: publishes any partial batch and marks the end of the tokens.
+	public void Close()
+	{
+		Publish();
+		Closed = true;
+	}
+	
+	// Consumer: stops taking tokens, so a producer waiting on a full ring gives up.
+	public void Cancel()
+	{
+		Cancelled = true;
+	}
+	
+	// Consumer: waits for the next token. Returns false once the ring is closed and drained.
+	public boolean Available()
+	{
+		while(ConsumerHead == CachedTail)
+		{
+			CachedTail = Tail.get();
+			if(ConsumerHead != CachedTail)
+				break;
+			
+			// Re-read the tail after seeing the close flag, in case the last batch raced with it.
+			if(Closed)
+			{
+				CachedTail = Tail.get();
+				return ConsumerHead != CachedTail;
+			}
+			
+			LockSupport.parkNanos(1000);
+		}
+		
+		return true;
+	}
+	
+	// Consumer: removes the next token. Call only after Available returned true.
+	public Token Take()
+	{
+		int theSlot = (int) ConsumerHead & Mask;
+		Token theToken = Slots[theSlot];
+		Slots[theSlot] = null;
+		
+		Head.lazySet(++ConsumerHead);
+		return theToken == ILLEGAL ? null : theToken;
+	}
+	
+	// Makes every pending token visible to the consumer.
+	private void Publish()
+	{
+		Tail.lazySet(PendingTail);
+	}
+}
@@ -0,0 +1,63 @@
+package objects;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Read-only view of a token's characters in the shared source buffer. The String form is built on first use.
+public final class TokenText implements CharSequence
+{
+	// Private properties.
+	private final ByteBuffer Source;
+	private final int Offset;
+	private final int Length;
+	private String Value;
+	
+	// Constructor.
+	public TokenText(ByteBuffer aSource, int aOffset, int aLength)
+	{
+		Source = aSource;
+		Offset = aOffset;
+		Length = aLength;
+		Value = null;
+	}
+	
+	@Override
+	public int length()
+	{
+		return Length;
+	}
+	
+	@Override
+	public char charAt(int aIndex)
+	{
+		if(aIndex < 0 || aIndex >= Length)
+			throw new IndexOutOfBoundsException("Index " + aIndex + " outside token of length " + Length);
+		
+		return (char) (Source.get(Offset + aIndex) & 0xFF);
+	}
+	
+	@Override
+	public CharSequence subSequence(int aStart, int aEnd)
+	{
+		if(aStart < 0 || aEnd > Length || aStart > aEnd)
+			throw new IndexOutOfBoundsException("Range " + aStart + "-" + aEnd + " outside token of length " + Length);
+		
+		return new TokenText(Source, Offset + aStart, aEnd - aStart);
+	}
+	
+	@Override
+	public String toString()
+	{
+		// Source is ASCII, so each byte is one character.
+		if(Value == null)
+		{
+			byte[] theBytes = new byte[Length];
+			for(int i = 0; i < Length; i++)
+				theBytes[i] = Source.get(Offset + i);
+			
+			Value = new String(theBytes, StandardCharsets.ISO_8859_1);
+		}
+		
+		return Value;
+	}
+}